@@ -6,6 +6,11 @@ import android.text.TextUtils;
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteChange;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteMatch;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
 import com.example.notetaker.util.LiveDataTestUtil;
 import com.example.notetaker.util.TestUtil;
 
@@ -13,6 +18,9 @@ import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -21,7 +29,7 @@ public class NoteDaoTest extends NoteDatabaseTest {
 
     public static final String TEST_TITLE = "This is a test title";
     public static final String TEST_CONTENT = "This is some test content";
-    public static final String TEST_TIMESTAMP = "08-2018";
+    public static final long TEST_TIMESTAMP = 1533081600000L; // 1 August 2018
 
     //InstantTaskExecutorRule is used to swap background threads used by Architecture Components to a foreground thread
     //used in JUnit4 only, not Junit5
@@ -121,4 +129,181 @@ public class NoteDaoTest extends NoteDatabaseTest {
         //update
         getNoteDao().updateNote(insertedNote).blockingGet();
     }
+
+    //insert a note, read it back by id
+
+    @Test
+    public void insertReadById() throws Exception {
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        long id = getNoteDao().insertNote(note).blockingGet();
+
+        Note insertedNote = getNoteDao().getNote((int) id).blockingGet();
+        note.setId((int) id);
+        assertEquals(note, insertedNote);
+    }
+
+    //insert several notes, read them back one page at a time by key
+
+    @Test
+    public void insertNotesReadPagesByKey() throws Exception {
+        for(int i = 0; i < 5; i++){
+            Note note = new Note(TestUtil.TEST_NOTE_1);
+            note.setTitle(TEST_TITLE + i);
+            getNoteDao().insertNote(note).blockingGet();
+        }
+
+        List<NoteSummary> firstPage = getNoteDao().getNoteSummariesAfter(0, 2).blockingGet();
+        assertEquals(2, firstPage.size());
+        assertEquals(TEST_TITLE + 0, firstPage.get(0).getTitle());
+        assertEquals(TEST_TITLE + 1, firstPage.get(1).getTitle());
+
+        int lastId = firstPage.get(1).getId();
+        List<NoteSummary> secondPage = getNoteDao().getNoteSummariesAfter(lastId, 2).blockingGet();
+        assertEquals(2, secondPage.size());
+        assertEquals(TEST_TITLE + 2, secondPage.get(0).getTitle());
+
+        //reading backwards returns the closest notes first
+        List<NoteSummary> previousPage = getNoteDao().getNoteSummariesBefore(secondPage.get(0).getId(), 2).blockingGet();
+        assertEquals(2, previousPage.size());
+        assertEquals(TEST_TITLE + 1, previousPage.get(0).getTitle());
+        assertEquals(TEST_TITLE + 0, previousPage.get(1).getTitle());
+    }
+
+    //insert, update and delete a batch of notes, each batch in one transaction
+
+    @Test
+    public void insertUpdateDeleteBatch() throws Exception {
+        List<Note> notes = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            Note note = new Note(TestUtil.TEST_NOTE_1);
+            note.setTitle(TEST_TITLE + i);
+            notes.add(note);
+        }
+
+        //insert
+        int[] insertedRows = getNoteDao().insertNotes(notes);
+        assertEquals(3, insertedRows.length);
+        for(int i = 0; i < insertedRows.length; i++){
+            assertTrue(insertedRows[i] > 0);
+            notes.get(i).setId(insertedRows[i]);
+        }
+
+        //update, a note with a null title fails on its own without undoing the others
+        notes.get(0).setContent(TEST_CONTENT);
+        notes.get(1).setTitle(null);
+        int[] updatedRows = getNoteDao().updateNotes(notes);
+        assertArrayEquals(new int[]{1, -1, 1}, updatedRows);
+
+        Note updatedNote = getNoteDao().getNote(notes.get(0).getId()).blockingGet();
+        assertEquals(TEST_CONTENT, updatedNote.getContent());
+
+        //delete
+        int[] deletedRows = getNoteDao().deleteNotes(notes);
+        assertArrayEquals(new int[]{1, 1, 1}, deletedRows);
+
+        LiveDataTestUtil<List<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
+        assertEquals(0, liveDataTestUtil.getValue(getNoteDao().getNotes()).size());
+    }
+
+    //insert notes and search them, the full text table is kept in step with the notes table
+
+    @Test
+    public void insertSearch() throws Exception {
+        Note milk = new Note(TestUtil.TEST_NOTE_1);
+        milk.setTitle("milk");
+        milk.setContent("semi skimmed");
+        int milkId = getNoteDao().insertNote(milk).blockingGet().intValue();
+
+        Note groceries = new Note(TestUtil.TEST_NOTE_1);
+        groceries.setTitle("groceries");
+        groceries.setContent("bread and milk");
+        int groceriesId = getNoteDao().insertNote(groceries).blockingGet().intValue();
+
+        List<NoteMatch> matches = getNoteDao().getNoteMatches("mil*", 10).blockingGet();
+        assertEquals(2, matches.size());
+
+        //past the limit only the newest matches are read
+        matches = getNoteDao().getNoteMatches("mil*", 1).blockingGet();
+        assertEquals(1, matches.size());
+        assertEquals(groceriesId, matches.get(0).getId());
+
+        List<NoteSearchResult> results = getNoteDao()
+                .getNoteSearchResults("mil*", Arrays.asList(milkId, groceriesId)).blockingGet();
+        assertEquals(2, results.size());
+
+        //a deleted note drops out of the full text table too
+        milk.setId(milkId);
+        getNoteDao().deleteNote(milk).blockingGet();
+        matches = getNoteDao().getNoteMatches("mil*", 10).blockingGet();
+        assertEquals(1, matches.size());
+        assertEquals(groceriesId, matches.get(0).getId());
+    }
+
+    //insert notes out of date order, read them back most recent first and by date range
+
+    @Test
+    public void insertReadByRecencyAndRange() throws Exception {
+        long[] timestamps = {TestUtil.TIMESTAMP_1, TestUtil.TIMESTAMP_2, TEST_TIMESTAMP, TestUtil.TIMESTAMP_2};
+        for(int i = 0; i < timestamps.length; i++){
+            Note note = new Note(TestUtil.TEST_NOTE_1);
+            note.setTitle(TEST_TITLE + i);
+            note.setTimestamp(timestamps[i]);
+            getNoteDao().insertNote(note).blockingGet();
+        }
+
+        //the two notes with the same timestamp come newest id first
+        List<NoteSummary> recent = getNoteDao().getRecentNoteSummaries(2).blockingGet();
+        assertEquals(2, recent.size());
+        assertEquals(TEST_TITLE + 3, recent.get(0).getTitle());
+        assertEquals(TEST_TITLE + 1, recent.get(1).getTitle());
+
+        //the next page carries on from the last note that was read
+        NoteSummary last = recent.get(1);
+        List<NoteSummary> older = getNoteDao().getNoteSummariesOlderThan(last.getTimestamp(), last.getId(), 2).blockingGet();
+        assertEquals(2, older.size());
+        assertEquals(TEST_TITLE + 0, older.get(0).getTitle());
+        assertEquals(TEST_TITLE + 2, older.get(1).getTitle());
+
+        //only the note from May 2019
+        List<NoteSummary> inRange = getNoteDao()
+                .getNoteSummariesBetween(new Date(TestUtil.TIMESTAMP_1), new Date(TestUtil.TIMESTAMP_2)).blockingGet();
+        assertEquals(1, inRange.size());
+        assertEquals(TEST_TITLE + 0, inRange.get(0).getTitle());
+    }
+
+    //insert, update and delete notes, every write is in the change log in the order it was made
+
+    @Test
+    public void insertUpdateDeleteReadChanges() throws Exception {
+        long startSeq = getNoteDao().getLatestChangeSeq().blockingGet();
+
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        int id = getNoteDao().insertNote(note).blockingGet().intValue();
+        note.setId(id);
+        note.setTitle(TEST_TITLE);
+        getNoteDao().updateNote(note).blockingGet();
+
+        List<NoteDelta> deltas = getNoteDao().getChangesAfter(startSeq).blockingGet();
+        assertEquals(2, deltas.size());
+        assertEquals(NoteChange.TYPE_INSERT, deltas.get(0).getType());
+        assertEquals(NoteChange.TYPE_UPDATE, deltas.get(1).getType());
+        assertTrue(deltas.get(1).getSeq() > deltas.get(0).getSeq());
+        //both changes come with the note as it is now
+        assertEquals(TEST_TITLE, deltas.get(0).getNote().getTitle());
+
+        //a deleted note comes without a summary
+        long seq = getNoteDao().getLatestChangeSeq().blockingGet();
+        getNoteDao().deleteNote(note).blockingGet();
+        deltas = getNoteDao().getChangesAfter(seq).blockingGet();
+        assertEquals(1, deltas.size());
+        assertEquals(NoteChange.TYPE_DELETE, deltas.get(0).getType());
+        assertEquals(id, deltas.get(0).getNoteId());
+        assertNull(deltas.get(0).getNote());
+
+        //trimming drops the changes before a seq and keeps the latest one
+        long latestSeq = getNoteDao().getLatestChangeSeq().blockingGet();
+        assertEquals(2, getNoteDao().deleteChangesBefore(latestSeq).blockingGet().intValue());
+        assertEquals(latestSeq, getNoteDao().getLatestChangeSeq().blockingGet().longValue());
+        assertEquals(1, getNoteDao().getChangesAfter(startSeq).blockingGet().size());
+    }
 }
@@ -0,0 +1,120 @@
+package com.example.notetaker;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.notetaker.db.DatabaseConfig;
+import com.example.notetaker.db.DatabaseExecutors;
+import com.example.notetaker.db.NoteChangeLog;
+import com.example.notetaker.db.NoteDatabase;
+import com.example.notetaker.db.NoteMigrations;
+import com.example.notetaker.models.Note;
+import com.example.notetaker.util.TestUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+//how long the list query takes while a batch save is being written, with and without write-ahead logging
+//results are written to logcat, with a rollback journal the reads wait for the batch transaction to commit
+public class NoteDatabaseJournalBenchmark {
+
+    private static final String TAG = "JournalBenchmark";
+
+    private static final int EXISTING_NOTES = 1000;
+    private static final int BATCH_NOTES = 20000;
+    private static final int PAGE = 50;
+
+    @Test
+    public void readWhileWrite_writeAheadLogging() throws Exception {
+        long[] latencies = readWhileWrite(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING);
+        log("WRITE_AHEAD_LOGGING", latencies);
+        assertTrue(latencies.length > 0);
+    }
+
+    @Test
+    public void readWhileWrite_truncate() throws Exception {
+        long[] latencies = readWhileWrite(RoomDatabase.JournalMode.TRUNCATE);
+        log("TRUNCATE", latencies);
+        assertTrue(latencies.length > 0);
+    }
+
+    //latencies of every read made while the batch was being written, in microseconds
+    private long[] readWhileWrite(RoomDatabase.JournalMode journalMode) throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        String name = "journal-benchmark-" + journalMode.name().toLowerCase();
+        context.deleteDatabase(name);
+
+        DatabaseConfig config = new DatabaseConfig(journalMode,
+                DatabaseConfig.DEFAULT_QUERY_THREADS, DatabaseConfig.DEFAULT_CACHE_SIZE_KIB);
+        //wal needs a file, an in-memory db would ignore the journal mode
+        final NoteDatabase noteDatabase = config.applyTo(
+                Room.databaseBuilder(context, NoteDatabase.class, name),
+                new DatabaseExecutors(config.getQueryThreads())
+        ).addMigrations(NoteMigrations.ALL)
+                .addCallback(NoteChangeLog.CALLBACK)
+                .build();
+
+        try {
+            noteDatabase.getNoteDao().insertNotes(createNotes(EXISTING_NOTES));
+
+            final List<Note> batch = createNotes(BATCH_NOTES);
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    noteDatabase.getNoteDao().insertNotes(batch);
+                }
+            });
+            writer.start();
+
+            List<Long> latencies = new ArrayList<>();
+            while(writer.isAlive()){
+                long start = SystemClock.elapsedRealtimeNanos();
+                noteDatabase.getNoteDao().getRecentNoteSummaries(PAGE).blockingGet();
+                latencies.add((SystemClock.elapsedRealtimeNanos() - start) / 1000);
+            }
+            writer.join();
+
+            long[] result = new long[latencies.size()];
+            for(int i = 0; i < result.length; i++){
+                result[i] = latencies.get(i);
+            }
+            return result;
+        } finally {
+            noteDatabase.close();
+            context.deleteDatabase(name);
+        }
+    }
+
+    private List<Note> createNotes(int count){
+        List<Note> notes = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            Note note = new Note(TestUtil.TEST_NOTE_1);
+            note.setTitle("title " + i);
+            note.setTimestamp(TestUtil.TIMESTAMP_1 + i);
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private void log(String journalMode, long[] latencies){
+        Arrays.sort(latencies);
+        if(latencies.length == 0){
+            Log.d(TAG, journalMode + ": no reads finished while the batch was written");
+            return;
+        }
+        Log.d(TAG, journalMode + ": reads=" + latencies.length
+                + " medianUs=" + latencies[latencies.length / 2]
+                + " p99Us=" + latencies[(int) (latencies.length * 0.99)]
+                + " maxUs=" + latencies[latencies.length - 1]);
+    }
+}
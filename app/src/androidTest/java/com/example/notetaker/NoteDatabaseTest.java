@@ -3,6 +3,7 @@ package com.example.notetaker;
 import androidx.room.Room;
 import androidx.test.core.app.ApplicationProvider;
 
+import com.example.notetaker.db.NoteChangeLog;
 import com.example.notetaker.db.NoteDao;
 import com.example.notetaker.db.NoteDatabase;
 
@@ -22,7 +23,9 @@ public abstract class NoteDatabaseTest {
         //inMemoryDatabaseBuilder creates an in-memory database, who's data is wiped when it is closed
         noteDatabase = Room.inMemoryDatabaseBuilder(
                 ApplicationProvider.getApplicationContext(),
-                NoteDatabase.class).build();
+                NoteDatabase.class)
+                .addCallback(NoteChangeLog.CALLBACK)
+                .build();
     }
 
     @After
@@ -0,0 +1,166 @@
+package com.example.notetaker;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.notetaker.db.NoteChangeLog;
+import com.example.notetaker.db.NoteDatabase;
+import com.example.notetaker.db.NoteMigrations;
+import com.example.notetaker.models.NoteChange;
+import com.example.notetaker.models.NoteSummary;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//runs every migration over a database created from the schemas exported to app/schemas
+//runMigrationsAndValidate() fails if the migrated schema doesn't match the one Room expects
+public class NoteMigrationsTest {
+
+    private static final String TAG = "NoteMigrationsTest";
+    private static final String TEST_DB = "migration-test";
+
+    //enough notes that a slow migration shows up
+    private static final int SEEDED_NOTES = 20000;
+    //the migrations run while the app is starting, so they have to finish well within this
+    private static final long MIGRATION_BUDGET_MS = 5000;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(),
+            NoteDatabase.class.getCanonicalName(),
+            new FrameworkSQLiteOpenHelperFactory());
+
+    @Test
+    public void migrate1To2_indexExistingNotes() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1);
+        insertVersion1Note(db, 1, "Take out the trash", "It's garbage day tomorrow.", "05-2019");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 2, true, NoteMigrations.MIGRATION_1_2);
+
+        assertEquals(1, count(db, "SELECT docid FROM notes_fts WHERE notes_fts MATCH 'garbage'"));
+    }
+
+    @Test
+    public void migrate2To3_convertTimestamps() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 2);
+        insertVersion1Note(db, 1, "valid", "content", "05-2019");
+        insertVersion1Note(db, 2, "malformed", "content", "May 2019");
+        insertVersion1Note(db, 3, "missing", "content", null);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 3, true, NoteMigrations.MIGRATION_2_3);
+
+        Calendar firstOfMay = Calendar.getInstance();
+        firstOfMay.clear();
+        firstOfMay.set(2019, Calendar.MAY, 1);
+        assertEquals(firstOfMay.getTimeInMillis(), timestamp(db, 1));
+        assertEquals(0, timestamp(db, 2));
+        assertEquals(0, timestamp(db, 3));
+    }
+
+    @Test
+    public void migrate3To4_logChangesFromThenOn() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 3);
+        db.execSQL("INSERT INTO notes (id, title, content, timestamp) VALUES (1, 'before', 'content', 0)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 4, true, NoteMigrations.MIGRATION_3_4);
+        assertEquals(0, count(db, "SELECT seq FROM note_changes"));
+
+        db.execSQL("INSERT INTO notes (id, title, content, timestamp) VALUES (2, 'after', 'content', 0)");
+        db.execSQL("UPDATE notes SET title = 'changed' WHERE id = 1");
+        db.execSQL("DELETE FROM notes WHERE id = 2");
+        assertEquals(3, count(db, "SELECT seq FROM note_changes"));
+        assertEquals(1, count(db, "SELECT seq FROM note_changes WHERE note_id = 1 AND type = " + NoteChange.TYPE_UPDATE));
+        assertEquals(1, count(db, "SELECT seq FROM note_changes WHERE note_id = 2 AND type = " + NoteChange.TYPE_DELETE));
+    }
+
+    @Test
+    public void migrateAll_largeDatabase_withinBudget() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1);
+        db.beginTransaction();
+        try {
+            SupportSQLiteStatement insert = db.compileStatement(
+                    "INSERT INTO notes (id, title, content, timestamp) VALUES (?, ?, ?, ?)");
+            for(int id = 1; id <= SEEDED_NOTES; id++){
+                insert.bindLong(1, id);
+                insert.bindString(2, "title " + id);
+                insert.bindString(3, "It's garbage day tomorrow, note number " + id);
+                insert.bindString(4, String.format("%02d-%d", id % 12 + 1, 2000 + id % 20));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.close();
+
+        long start = SystemClock.elapsedRealtime();
+        db = helper.runMigrationsAndValidate(TEST_DB, 4, true, NoteMigrations.ALL);
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        Log.d(TAG, "migrated " + SEEDED_NOTES + " notes from version 1 to 4 in " + elapsed + "ms");
+
+        assertTrue("migration took " + elapsed + "ms", elapsed < MIGRATION_BUDGET_MS);
+        assertEquals(SEEDED_NOTES, count(db, "SELECT id FROM notes WHERE timestamp > 0"));
+        assertEquals(SEEDED_NOTES, count(db, "SELECT docid FROM notes_fts WHERE notes_fts MATCH 'garbage'"));
+        db.close();
+
+        //the migrated database opens with the real schema and can be read through the dao
+        NoteDatabase noteDatabase = Room.databaseBuilder(
+                ApplicationProvider.getApplicationContext(),
+                NoteDatabase.class,
+                TEST_DB
+        ).addMigrations(NoteMigrations.ALL)
+                .addCallback(NoteChangeLog.CALLBACK)
+                .build();
+        List<NoteSummary> recent = noteDatabase.getNoteDao().getRecentNoteSummaries(10).blockingGet();
+        assertEquals(10, recent.size());
+        noteDatabase.close();
+    }
+
+    private void insertVersion1Note(SupportSQLiteDatabase db, int id, String title, String content, String timestamp){
+        ContentValues values = new ContentValues();
+        values.put("id", id);
+        values.put("title", title);
+        values.put("content", content);
+        values.put("timestamp", timestamp);
+        db.insert("notes", SQLiteDatabase.CONFLICT_FAIL, values);
+    }
+
+    private long timestamp(SupportSQLiteDatabase db, int id){
+        Cursor cursor = db.query("SELECT timestamp FROM notes WHERE id = ?", new Object[]{id});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int count(SupportSQLiteDatabase db, String query){
+        Cursor cursor = db.query(query);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.notetaker;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.ui.noteslist.NotesRecyclerAdapter;
+import com.example.notetaker.ui.noteslist.NotesRecyclerConfig;
+import com.example.notetaker.util.TestUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//counts how many rows are inflated and bound while the notes list is flung from top to bottom and back
+//the default RecyclerView settings are run next to NotesRecyclerConfig.DEFAULT, results are written to logcat
+public class NotesRecyclerBenchmark {
+
+    private static final String TAG = "NotesRecyclerBenchmark";
+
+    private static final int NOTE_COUNT = 5000;
+    private static final int WIDTH_PX = 1080;
+    private static final int HEIGHT_PX = 1920;
+    //roughly how far a fast fling moves between two frames
+    private static final int FLING_STEP_PX = 600;
+
+    @Test
+    public void flingLargeList_defaultSettings() throws Exception {
+        Counts counts = fling(null);
+        Log.d(TAG, "default settings: " + counts);
+        assertEquals(NOTE_COUNT, counts.itemCount);
+    }
+
+    @Test
+    public void flingLargeList_notesRecyclerConfig() throws Exception {
+        Counts counts = fling(NotesRecyclerConfig.DEFAULT);
+        Log.d(TAG, "NotesRecyclerConfig.DEFAULT: " + counts);
+        assertEquals(NOTE_COUNT, counts.itemCount);
+        //views are recycled, only about a screen of rows plus the pool is ever inflated
+        assertTrue(counts.toString(), counts.creates < NOTE_COUNT / 20);
+    }
+
+    private Counts fling(final NotesRecyclerConfig config){
+        final Counts counts = new Counts();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.AppTheme);
+                RecyclerView recyclerView = new RecyclerView(context);
+                LinearLayoutManager layoutManager = new LinearLayoutManager(context);
+                if(config != null){
+                    config.apply(recyclerView, layoutManager);
+                }
+                else{
+                    recyclerView.setLayoutManager(layoutManager);
+                }
+
+                CountingAdapter adapter = new CountingAdapter(counts);
+                recyclerView.setAdapter(adapter);
+                adapter.setNotes(createNotes());
+
+                //the differ dispatches the first list straight away, there is nothing to diff it against
+                layout(recyclerView);
+                counts.itemCount = adapter.getItemCount();
+
+                long start = System.nanoTime();
+                while(recyclerView.canScrollVertically(1)){
+                    recyclerView.scrollBy(0, FLING_STEP_PX);
+                }
+                while(recyclerView.canScrollVertically(-1)){
+                    recyclerView.scrollBy(0, -FLING_STEP_PX);
+                }
+                counts.elapsedMs = (System.nanoTime() - start) / 1000000;
+            }
+        });
+        return counts;
+    }
+
+    private void layout(RecyclerView recyclerView){
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH_PX, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT_PX, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH_PX, HEIGHT_PX);
+    }
+
+    private List<NoteSummary> createNotes(){
+        List<NoteSummary> notes = new ArrayList<>(NOTE_COUNT);
+        for(int id = 1; id <= NOTE_COUNT; id++){
+            notes.add(new NoteSummary(id, "title " + id, TestUtil.TIMESTAMP_1));
+        }
+        return notes;
+    }
+
+    private static class Counts {
+        int itemCount;
+        int creates;
+        int binds;
+        long elapsedMs;
+
+        @Override
+        public String toString() {
+            return "Counts{" +
+                    "items=" + itemCount +
+                    ", creates=" + creates +
+                    ", binds=" + binds +
+                    ", elapsedMs=" + elapsedMs +
+                    '}';
+        }
+    }
+
+    //the real adapter, with the number of inflations and binds counted
+    private static class CountingAdapter extends NotesRecyclerAdapter {
+
+        private final Counts counts;
+
+        CountingAdapter(Counts counts) {
+            super(new OnNoteListener() {
+                @Override
+                public void onNoteClick(NoteSummary note) {
+                }
+            }, new OnPageRequestListener() {
+                @Override
+                public void onLoadNextPage() {
+                }
+
+                @Override
+                public void onLoadPreviousPage() {
+                }
+            });
+            this.counts = counts;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            counts.creates++;
+            return super.onCreateViewHolder(parent, viewType);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            counts.binds++;
+            super.onBindViewHolder(holder, position);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.notetaker;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ViewTreeObserver;
+
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProviders;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.ui.noteslist.NotesListActivity;
+import com.example.notetaker.ui.noteslist.NotesListViewModel;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+//times the notes list from launch to its first frame and to its first notes, results are written to logcat
+//the instrumentation already started the process, so BaseApplication's warm up has run before the first launch,
+//this measures the activity's side of startup. For a cold start of the whole process use
+//adb shell am start -S -W com.example.notetaker/.ui.noteslist.NotesListActivity, which reports the first frame,
+//and the "Fully drawn" line in logcat, which NotesListActivity reports once its first notes are shown
+public class StartupBenchmark {
+
+    private static final String TAG = "StartupBenchmark";
+
+    private static final int LAUNCHES = 5;
+    private static final long TIMEOUT_MS = 10000;
+    //first frame and first notes, well above what a launch should take, only there to catch a regression
+    private static final long FIRST_NOTES_BUDGET_MS = 2000;
+
+    @Test
+    public void launchNotesList_timeToFirstFrameAndFirstNotes() throws Exception {
+        long[] firstFrameMs = new long[LAUNCHES];
+        long[] firstNotesMs = new long[LAUNCHES];
+        for(int i = 0; i < LAUNCHES; i++){
+            Times times = launch();
+            firstFrameMs[i] = times.firstFrameMs;
+            firstNotesMs[i] = times.firstNotesMs;
+            Log.d(TAG, "launch " + (i + 1) + ": " + times);
+        }
+
+        //the first launch is the only one that gets the page prefetched at startup
+        Log.d(TAG, "first launch: firstFrameMs=" + firstFrameMs[0] + ", firstNotesMs=" + firstNotesMs[0]);
+        Log.d(TAG, "median of " + LAUNCHES + ": firstFrameMs=" + median(firstFrameMs) + ", firstNotesMs=" + median(firstNotesMs));
+        assertTrue("first notes took " + median(firstNotesMs) + "ms", median(firstNotesMs) < FIRST_NOTES_BUDGET_MS);
+    }
+
+    private Times launch() throws Exception {
+        final Times times = new Times();
+        final CountDownLatch firstFrame = new CountDownLatch(1);
+        final CountDownLatch firstNotes = new CountDownLatch(1);
+        final long start = SystemClock.elapsedRealtime();
+
+        Application application = ApplicationProvider.getApplicationContext();
+        Application.ActivityLifecycleCallbacks callbacks = new LifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(final Activity activity, Bundle savedInstanceState) {
+                if(!(activity instanceof NotesListActivity)){
+                    return;
+                }
+                //the first draw of the window is the first frame
+                activity.getWindow().getDecorView().getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        activity.getWindow().getDecorView().getViewTreeObserver().removeOnPreDrawListener(this);
+                        times.firstFrameMs = SystemClock.elapsedRealtime() - start;
+                        firstFrame.countDown();
+                        return true;
+                    }
+                });
+            }
+
+            @Override
+            public void onActivityStarted(Activity activity) {
+                if(!(activity instanceof NotesListActivity) || firstNotes.getCount() == 0){
+                    return;
+                }
+                //the view model was made in onCreate, so this finds it instead of making another
+                NotesListViewModel viewModel = ViewModelProviders.of((NotesListActivity) activity).get(NotesListViewModel.class);
+                viewModel.observeNotes().observeForever(new Observer<List<NoteSummary>>() {
+                    @Override
+                    public void onChanged(List<NoteSummary> notes) {
+                        if(notes != null && firstNotes.getCount() > 0){
+                            times.firstNotesMs = SystemClock.elapsedRealtime() - start;
+                            times.noteCount = notes.size();
+                            firstNotes.countDown();
+                        }
+                    }
+                });
+            }
+        };
+        application.registerActivityLifecycleCallbacks(callbacks);
+
+        ActivityScenario<NotesListActivity> scenario = ActivityScenario.launch(NotesListActivity.class);
+        try {
+            assertTrue("no first frame", firstFrame.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            assertTrue("no first notes", firstNotes.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        } finally {
+            application.unregisterActivityLifecycleCallbacks(callbacks);
+            scenario.close();
+        }
+        return times;
+    }
+
+    private long median(long[] values){
+        long[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static class Times {
+        long firstFrameMs;
+        long firstNotesMs;
+        int noteCount;
+
+        @Override
+        public String toString() {
+            return "Times{" +
+                    "firstFrameMs=" + firstFrameMs +
+                    ", firstNotesMs=" + firstNotesMs +
+                    ", notes=" + noteCount +
+                    '}';
+        }
+    }
+
+    //only the callbacks the benchmark needs are overridden
+    private static class LifecycleCallbacks implements Application.ActivityLifecycleCallbacks {
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
+}
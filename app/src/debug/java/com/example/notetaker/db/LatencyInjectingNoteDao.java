@@ -0,0 +1,167 @@
+package com.example.notetaker.db;
+
+import android.os.SystemClock;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteMatch;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
+
+import java.util.Date;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.functions.Action;
+
+//wraps the real dao and makes every call take latencyMs longer, to see how the app behaves on a slow disk
+//only in debug builds, release builds use the dao from Room directly (see DaoDecoratorModule)
+//the wait happens on the thread the query runs on, the same as slow io would, not on a timer thread
+public class LatencyInjectingNoteDao extends NoteDao {
+
+    private final NoteDao delegate;
+    private final long latencyMs;
+
+    public LatencyInjectingNoteDao(NoteDao delegate, long latencyMs) {
+        this.delegate = delegate;
+        this.latencyMs = latencyMs;
+    }
+
+    private void sleep(){
+        if(latencyMs > 0){
+            SystemClock.sleep(latencyMs);
+        }
+    }
+
+    private <T> Single<T> withLatency(Single<T> query){
+        return Completable.fromAction(new Action() {
+            @Override
+            public void run() throws Exception {
+                sleep();
+            }
+        }).andThen(query);
+    }
+
+    @Override
+    public Single<Long> insertNote(Note note) throws Exception {
+        return withLatency(delegate.insertNote(note));
+    }
+
+    @Override
+    public Single<Integer> updateNote(Note note) throws Exception {
+        return withLatency(delegate.updateNote(note));
+    }
+
+    @Override
+    public Single<Integer> deleteNote(Note note) throws Exception {
+        return withLatency(delegate.deleteNote(note));
+    }
+
+    @Override
+    public LiveData<List<Note>> getNotes() {
+        return delegate.getNotes();
+    }
+
+    @Override
+    public Single<Note> getNote(int id) {
+        return withLatency(delegate.getNote(id));
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesAfter(int afterId, int limit) {
+        return withLatency(delegate.getNoteSummariesAfter(afterId, limit));
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesBefore(int beforeId, int limit) {
+        return withLatency(delegate.getNoteSummariesBefore(beforeId, limit));
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getRecentNoteSummaries(int limit) {
+        return withLatency(delegate.getRecentNoteSummaries(limit));
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesOlderThan(long beforeTimestamp, int beforeId, int limit) {
+        return withLatency(delegate.getNoteSummariesOlderThan(beforeTimestamp, beforeId, limit));
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesBetween(Date from, Date to) {
+        return withLatency(delegate.getNoteSummariesBetween(from, to));
+    }
+
+    @Override
+    public Single<List<NoteMatch>> getNoteMatches(String query, int limit) {
+        return withLatency(delegate.getNoteMatches(query, limit));
+    }
+
+    @Override
+    public Single<List<NoteSearchResult>> getNoteSearchResults(String query, List<Integer> ids) {
+        return withLatency(delegate.getNoteSearchResults(query, ids));
+    }
+
+    @Override
+    public Single<Long> getLatestChangeSeq() {
+        return withLatency(delegate.getLatestChangeSeq());
+    }
+
+    //the latency goes on the read of the changes rather than on every emission of the seq
+    @Override
+    public Flowable<Long> observeLatestChangeSeq() {
+        return delegate.observeLatestChangeSeq();
+    }
+
+    @Override
+    public Single<List<NoteDelta>> getChangesAfter(long afterSeq) {
+        return withLatency(delegate.getChangesAfter(afterSeq));
+    }
+
+    @Override
+    public Single<Integer> deleteChangesBefore(long beforeSeq) {
+        return withLatency(delegate.deleteChangesBefore(beforeSeq));
+    }
+
+    @Override
+    long insertNoteBlocking(Note note) {
+        sleep();
+        return delegate.insertNoteBlocking(note);
+    }
+
+    @Override
+    int updateNoteBlocking(Note note) {
+        sleep();
+        return delegate.updateNoteBlocking(note);
+    }
+
+    @Override
+    int deleteNoteBlocking(Note note) {
+        sleep();
+        return delegate.deleteNoteBlocking(note);
+    }
+
+    //the batches have to go to the delegate as a whole, it's Room's implementation that wraps them in a transaction
+    //the latency is added once for the batch, the same as one commit
+    @Override
+    public int[] insertNotes(List<Note> notes) {
+        sleep();
+        return delegate.insertNotes(notes);
+    }
+
+    @Override
+    public int[] updateNotes(List<Note> notes) {
+        sleep();
+        return delegate.updateNotes(notes);
+    }
+
+    @Override
+    public int[] deleteNotes(List<Note> notes) {
+        sleep();
+        return delegate.deleteNotes(notes);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.notetaker.di;
+
+import com.example.notetaker.BuildConfig;
+import com.example.notetaker.db.LatencyInjectingNoteDao;
+import com.example.notetaker.db.NoteDao;
+import com.example.notetaker.db.NoteDatabase;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+
+//debug builds can slow every db call down by BuildConfig.DB_LATENCY_MS, set in app/build.gradle
+//at 0 the dao from Room is used as it is, the same as in release
+@Module
+class DaoDecoratorModule {
+
+    @Singleton
+    @Provides
+    static NoteDao provideNoteDao(NoteDatabase noteDatabase) {
+        NoteDao noteDao = noteDatabase.getNoteDao();
+        if(BuildConfig.DB_LATENCY_MS > 0){
+            return new LatencyInjectingNoteDao(noteDao, BuildConfig.DB_LATENCY_MS);
+        }
+        return noteDao;
+    }
+}
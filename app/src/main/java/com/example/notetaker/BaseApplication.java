@@ -1,13 +1,87 @@
 package com.example.notetaker;
 
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.util.Log;
+
+import com.example.notetaker.db.DbSchedulers;
 import com.example.notetaker.di.DaggerAppComponent;
+import com.example.notetaker.metrics.InMemoryRepositoryMetrics;
+import com.example.notetaker.metrics.RepositoryMetrics;
+import com.example.notetaker.repository.NoteRepository;
+import com.example.notetaker.ui.noteslist.NotesListViewModel;
+import com.example.notetaker.util.DateUtil;
+
+import java.util.TimeZone;
+
+import javax.inject.Inject;
 
+import dagger.Lazy;
 import dagger.android.AndroidInjector;
 import dagger.android.DaggerApplication;
 
 public class BaseApplication extends DaggerApplication {
+
+    private static final String TAG = "BaseApplication";
+
+    //Intent.EXTRA_TIMEZONE needs api 30, the broadcast has carried the zone's id under this name since api 1
+    private static final String EXTRA_TIME_ZONE = "time-zone";
+
+    //Lazy so that injecting the application doesn't build the database on the main thread
+    @Inject
+    Lazy<NoteRepository> noteRepository;
+
+    @Inject
+    Lazy<DbSchedulers> dbSchedulers;
+
+    @Inject
+    RepositoryMetrics repositoryMetrics;
+
     @Override
     protected AndroidInjector<? extends DaggerApplication> applicationInjector() {
         return DaggerAppComponent.builder().application(this).build();
     }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        watchTimeZone();
+        warmUpDatabase();
+    }
+
+    //DateUtil keeps the zone it formats timestamps in, so it has to be told when the device's zone changes
+    //the new zone is taken from the broadcast, TimeZone.getDefault() isn't always reset by the time it arrives
+    private void watchTimeZone(){
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                String zoneId = intent.getStringExtra(EXTRA_TIME_ZONE);
+                DateUtil.setTimeZone(zoneId != null ? TimeZone.getTimeZone(zoneId) : TimeZone.getDefault());
+            }
+        }, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED));
+    }
+
+    //the app has just gone into the background, log how the db calls have done since it started
+    //adb logcat -s BaseApplication
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if(level == TRIM_MEMORY_UI_HIDDEN && repositoryMetrics instanceof InMemoryRepositoryMetrics){
+            Log.i(TAG, ((InMemoryRepositoryMetrics) repositoryMetrics).dump());
+        }
+    }
+
+    //builds the repository and database on a db thread and reads the first page of the list, while the first screen inflates
+    //the list's view model is handed that page instead of waiting for a read of its own,
+    //and the activity's injection only finds the repository already built
+    private void warmUpDatabase(){
+        dbSchedulers.get().reads().scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                noteRepository.get().prefetchNoteSummaryPage(0, NotesListViewModel.PAGE_SIZE);
+            }
+        });
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.notetaker.db;
+
+import androidx.room.TypeConverter;
+
+import java.util.Date;
+
+//lets dao methods take a Date, it's stored as the same milliseconds since the epoch as Note.timestamp
+public class Converters {
+
+    @TypeConverter
+    public static Date fromTimestamp(Long timestamp){
+        return timestamp == null ? null : new Date(timestamp);
+    }
+
+    @TypeConverter
+    public static Long toTimestamp(Date date){
+        return date == null ? null : date.getTime();
+    }
+}
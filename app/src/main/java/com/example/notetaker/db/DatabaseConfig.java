@@ -0,0 +1,64 @@
+package com.example.notetaker.db;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+//how NoteDatabase is opened, provided by AppModule so it can be swapped out in one place
+public class DatabaseConfig {
+
+    //reads don't block each other in WAL mode, a couple of threads is plenty for one screen of queries
+    public static final int DEFAULT_QUERY_THREADS = 2;
+    //page cache for the connection Room opens the db with, which is the one every write goes through
+    //sqlite's default is 2000KiB, a big batch touches more pages than that
+    //the framework opens the extra WAL reader connections itself and has no hook to run a pragma on them,
+    //so reads on those keep the default, and the size of that pool isn't something the app can set either
+    public static final int DEFAULT_CACHE_SIZE_KIB = 4096;
+
+    //write-ahead logging lets the list keep reading while a save or batch is being written,
+    //with a rollback journal every read waits for the write transaction to commit
+    public static final DatabaseConfig DEFAULT = new DatabaseConfig(
+            RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING,
+            DEFAULT_QUERY_THREADS,
+            DEFAULT_CACHE_SIZE_KIB);
+
+    private final RoomDatabase.JournalMode journalMode;
+    private final int queryThreads;
+    private final int cacheSizeKib;
+
+    public DatabaseConfig(RoomDatabase.JournalMode journalMode, int queryThreads, int cacheSizeKib) {
+        this.journalMode = journalMode;
+        this.queryThreads = queryThreads;
+        this.cacheSizeKib = cacheSizeKib;
+    }
+
+    public RoomDatabase.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public int getQueryThreads() {
+        return queryThreads;
+    }
+
+    public int getCacheSizeKib() {
+        return cacheSizeKib;
+    }
+
+    public <T extends RoomDatabase> RoomDatabase.Builder<T> applyTo(RoomDatabase.Builder<T> builder, DatabaseExecutors executors){
+        return builder
+                .setJournalMode(journalMode)
+                .setQueryExecutor(executors.getQueryExecutor())
+                .setTransactionExecutor(executors.getTransactionExecutor())
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                        //a negative cache_size is in KiB rather than pages
+                        //only the primary connection gets it, see DEFAULT_CACHE_SIZE_KIB
+                        Cursor cursor = db.query("PRAGMA cache_size = -" + cacheSizeKib);
+                        cursor.close();
+                    }
+                });
+    }
+}
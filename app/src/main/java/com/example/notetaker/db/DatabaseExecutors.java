@@ -0,0 +1,41 @@
+package com.example.notetaker.db;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//the threads the db is used from, sized by DatabaseConfig
+//a fixed number of threads, so a burst of queries waits in the queue instead of starting a thread each
+public class DatabaseExecutors {
+
+    private final ExecutorService queryExecutor;
+    private final ExecutorService transactionExecutor;
+
+    public DatabaseExecutors(int queryThreads) {
+        queryExecutor = Executors.newFixedThreadPool(queryThreads, namedThreadFactory("db-query-"));
+        //sqlite only lets one transaction write at a time, more threads would only wait on its lock
+        transactionExecutor = Executors.newSingleThreadExecutor(namedThreadFactory("db-transaction-"));
+    }
+
+    public ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    public ExecutorService getTransactionExecutor() {
+        return transactionExecutor;
+    }
+
+    private static ThreadFactory namedThreadFactory(final String prefix){
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                return new Thread(runnable, prefix + count.incrementAndGet());
+            }
+        };
+    }
+}
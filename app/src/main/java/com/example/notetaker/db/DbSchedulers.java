@@ -0,0 +1,37 @@
+package com.example.notetaker.db;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+//where the repository runs its db work, instead of Schedulers.io() which starts a new thread for every
+//concurrent call. sqlite only lets one connection write at a time, so writes share a single thread and
+//wait in its queue rather than on the db lock. reads get the small pool of query threads
+public class DbSchedulers {
+
+    private final Scheduler reads;
+    private final Scheduler writes;
+
+    public DbSchedulers(Scheduler reads, Scheduler writes) {
+        this.reads = reads;
+        this.writes = writes;
+    }
+
+    public static DbSchedulers from(DatabaseExecutors executors){
+        return new DbSchedulers(
+                Schedulers.from(executors.getQueryExecutor()),
+                Schedulers.from(executors.getTransactionExecutor()));
+    }
+
+    //runs everything on the calling thread, for tests
+    public static DbSchedulers trampoline(){
+        return new DbSchedulers(Schedulers.trampoline(), Schedulers.trampoline());
+    }
+
+    public Scheduler reads() {
+        return reads;
+    }
+
+    public Scheduler writes() {
+        return writes;
+    }
+}
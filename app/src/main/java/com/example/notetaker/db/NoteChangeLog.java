@@ -0,0 +1,39 @@
+package com.example.notetaker.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.notetaker.models.NoteChange;
+
+//keeps the note_changes table (NoteChange) filled in with every write to the notes table
+//the triggers run in the same transaction as the write, so a change can't be missed or recorded for a write that rolled back
+//Room only creates triggers of its own, these are created by CALLBACK for new databases and by MIGRATION_3_4 for old ones
+public class NoteChangeLog {
+
+    static final String[] TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS note_changes_AFTER_INSERT AFTER INSERT ON `notes` " +
+                    "BEGIN INSERT INTO `note_changes`(`note_id`, `type`) VALUES (NEW.`id`, " + NoteChange.TYPE_INSERT + "); END",
+            "CREATE TRIGGER IF NOT EXISTS note_changes_AFTER_UPDATE AFTER UPDATE ON `notes` " +
+                    "BEGIN INSERT INTO `note_changes`(`note_id`, `type`) VALUES (NEW.`id`, " + NoteChange.TYPE_UPDATE + "); END",
+            "CREATE TRIGGER IF NOT EXISTS note_changes_AFTER_DELETE AFTER DELETE ON `notes` " +
+                    "BEGIN INSERT INTO `note_changes`(`note_id`, `type`) VALUES (OLD.`id`, " + NoteChange.TYPE_DELETE + "); END"
+    };
+
+    //the log is only read by observers in this process, so nothing from before the database was opened is needed
+    //clearing it when it's opened keeps it as small as the edits of one session
+    //sqlite_sequence still remembers the last seq, so the numbers keep going up
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            for(String trigger : TRIGGERS){
+                db.execSQL(trigger);
+            }
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DELETE FROM `note_changes`");
+        }
+    };
+}
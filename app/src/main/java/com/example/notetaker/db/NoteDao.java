@@ -1,36 +1,159 @@
 package com.example.notetaker.db;
 
+import android.database.sqlite.SQLiteConstraintException;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteMatch;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
 
+import java.util.Date;
 import java.util.List;
 
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 
+//an abstract class rather than an interface so the batch operations can be written as @Transaction methods
 @Dao
-public interface NoteDao {
+public abstract class NoteDao {
 
     //using @Insert instructs Room to insert all parameters into the db in a single transaction
     @Insert
-    Single<Long> insertNote(Note note) throws Exception;
+    public abstract Single<Long> insertNote(Note note) throws Exception;
 
     //the @Update annotation modifies the set of entities given as parameters in the db
     //it uses a query that matches against the primary key of each entry in the entity
     @Update
-    Single<Integer> updateNote(Note note) throws Exception;
+    public abstract Single<Integer> updateNote(Note note) throws Exception;
 
     //the @Delete annotation deletes the entities passed in as parameters in the db
     @Delete
-    Single<Integer> deleteNote(Note note) throws Exception;
+    public abstract Single<Integer> deleteNote(Note note) throws Exception;
 
     //@Query allows read/write operations on the db. Each @Query method is verified at compile time
     //Room also verifies the return type if the fields in the returned object don't match the entity column names
     @Query("SELECT * FROM notes")
-    LiveData<List<Note>> getNotes();
- }
+    public abstract LiveData<List<Note>> getNotes();
+
+    @Query("SELECT * FROM notes WHERE id = :id")
+    public abstract Single<Note> getNote(int id);
+
+    //keyset pagination: seek past the last id that was already loaded instead of using OFFSET,
+    //so each page is a range scan on the primary key no matter how deep into the table it is
+    //only the columns in NoteSummary are selected, the content column is never read for the list
+    @Query("SELECT id, title, timestamp FROM notes WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    public abstract Single<List<NoteSummary>> getNoteSummariesAfter(int afterId, int limit);
+
+    //the page directly before a key, in descending order so LIMIT keeps the rows closest to the key
+    @Query("SELECT id, title, timestamp FROM notes WHERE id < :beforeId ORDER BY id DESC LIMIT :limit")
+    public abstract Single<List<NoteSummary>> getNoteSummariesBefore(int beforeId, int limit);
+
+    //the most recently edited notes first, read in order straight from the timestamp index
+    //ties are broken by id, which is already in the index since it's the rowid
+    @Query("SELECT id, title, timestamp FROM notes ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    public abstract Single<List<NoteSummary>> getRecentNoteSummaries(int limit);
+
+    //the page of notes that comes after (beforeTimestamp, beforeId) in recency order, keyset pagination like the id pages
+    //the first condition is the range scan on the index, the second only skips the notes already loaded at that timestamp
+    @Query("SELECT id, title, timestamp FROM notes " +
+            "WHERE timestamp <= :beforeTimestamp AND (timestamp < :beforeTimestamp OR id < :beforeId) " +
+            "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    public abstract Single<List<NoteSummary>> getNoteSummariesOlderThan(long beforeTimestamp, int beforeId, int limit);
+
+    //notes edited from (inclusive) to (exclusive), most recent first
+    @Query("SELECT id, title, timestamp FROM notes WHERE timestamp >= :from AND timestamp < :to " +
+            "ORDER BY timestamp DESC, id DESC")
+    public abstract Single<List<NoteSummary>> getNoteSummariesBetween(Date from, Date to);
+
+    //the newest notes matching a full text query, at most limit of them, with the matchinfo needed to rank them
+    //only the full text index is read here, not the content of the notes
+    //FTS4 walks the doclist in docid order either way, so the LIMIT stops it early instead of sorting
+    @Query("SELECT docid AS id, matchinfo(notes_fts, 'pcx') AS matchInfo FROM notes_fts WHERE notes_fts MATCH :query " +
+            "ORDER BY docid DESC LIMIT :limit")
+    public abstract Single<List<NoteMatch>> getNoteMatches(String query, int limit);
+
+    //summaries and snippets for the notes that ranked highest, snippet() reads the content of just these notes
+    @Query("SELECT notes.id, notes.title, notes.timestamp, snippet(notes_fts, '', '', '...', -1, 12) AS snippet " +
+            "FROM notes JOIN notes_fts ON notes.id = notes_fts.docid " +
+            "WHERE notes_fts MATCH :query AND notes_fts.docid IN (:ids)")
+    public abstract Single<List<NoteSearchResult>> getNoteSearchResults(String query, List<Integer> ids);
+
+    //the seq of the latest change in the change log, 0 if nothing has changed since the database was opened
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM note_changes")
+    public abstract Single<Long> getLatestChangeSeq();
+
+    //the same, emitted again every time Room sees the change log grow
+    //only the primary key is read for it, so it costs the same however many notes there are
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM note_changes")
+    public abstract Flowable<Long> observeLatestChangeSeq();
+
+    //every change after afterSeq in the order it was made, with the changed note as it is now
+    //a range scan on the primary key of the log, then one primary key lookup in notes for each change
+    @Query("SELECT note_changes.seq, note_changes.note_id, note_changes.type, notes.id, notes.title, notes.timestamp " +
+            "FROM note_changes LEFT JOIN notes ON notes.id = note_changes.note_id " +
+            "WHERE note_changes.seq > :afterSeq ORDER BY note_changes.seq ASC")
+    public abstract Single<List<NoteDelta>> getChangesAfter(long afterSeq);
+
+    //drops the changes before beforeSeq once every observer has read them, see NoteRepository.trimChangeLog
+    @Query("DELETE FROM note_changes WHERE seq < :beforeSeq")
+    public abstract Single<Integer> deleteChangesBefore(long beforeSeq);
+
+    //blocking single row writes, only called from the batch operations below which already run off the main thread
+    @Insert
+    abstract long insertNoteBlocking(Note note);
+
+    @Update
+    abstract int updateNoteBlocking(Note note);
+
+    @Delete
+    abstract int deleteNoteBlocking(Note note);
+
+    //@Transaction runs the whole batch in one transaction, so there is a single journal commit for all of the rows
+    //a row that breaks a constraint only rolls back its own statement, it's reported as -1 and the rest still go in
+    //returns the new row id of every note, in the same order as the list
+    @Transaction
+    public int[] insertNotes(List<Note> notes) {
+        int[] rows = new int[notes.size()];
+        for(int i = 0; i < notes.size(); i++){
+            try {
+                rows[i] = (int) insertNoteBlocking(notes.get(i));
+            } catch (SQLiteConstraintException e) {
+                rows[i] = -1;
+            }
+        }
+        return rows;
+    }
+
+    //returns the number of rows updated for every note, in the same order as the list
+    @Transaction
+    public int[] updateNotes(List<Note> notes) {
+        int[] rows = new int[notes.size()];
+        for(int i = 0; i < notes.size(); i++){
+            try {
+                rows[i] = updateNoteBlocking(notes.get(i));
+            } catch (SQLiteConstraintException e) {
+                rows[i] = -1;
+            }
+        }
+        return rows;
+    }
+
+    //returns the number of rows deleted for every note, in the same order as the list
+    @Transaction
+    public int[] deleteNotes(List<Note> notes) {
+        int[] rows = new int[notes.size()];
+        for(int i = 0; i < notes.size(); i++){
+            rows[i] = deleteNoteBlocking(notes.get(i));
+        }
+        return rows;
+    }
+}
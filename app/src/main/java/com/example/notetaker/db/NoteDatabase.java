@@ -2,13 +2,20 @@ package com.example.notetaker.db;
 
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
 
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteChange;
+import com.example.notetaker.models.NoteFts;
 
-@Database(entities = {Note.class}, version = 1)
+@Database(entities = {Note.class, NoteFts.class, NoteChange.class}, version = 4)
+@TypeConverters(Converters.class)
 public abstract class NoteDatabase extends RoomDatabase {
 
     public static final String DATABASE_NAME = "notes_db";
 
+    //every version change needs a migration in NoteMigrations.ALL, and its schema exported to app/schemas
+    //builders also need NoteChangeLog.CALLBACK, or the note_changes table is never filled in
+
     public abstract NoteDao getNoteDao();
 }
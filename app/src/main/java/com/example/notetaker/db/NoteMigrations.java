@@ -0,0 +1,78 @@
+package com.example.notetaker.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+//every migration of NoteDatabase, so users keep their notes when the schema changes
+//a new migration is added to ALL, which is what AppModule and the migration tests use
+public class NoteMigrations {
+
+    //the same triggers Room creates for the external content table in NoteFts
+    //they have to be created by hand for databases that are migrated instead of created
+    static final String[] FTS_SYNC_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_BEFORE_UPDATE BEFORE UPDATE ON `notes` " +
+                    "BEGIN DELETE FROM `notes_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_BEFORE_DELETE BEFORE DELETE ON `notes` " +
+                    "BEGIN DELETE FROM `notes_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_AFTER_UPDATE AFTER UPDATE ON `notes` " +
+                    "BEGIN INSERT INTO `notes_fts`(`docid`, `title`, `content`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`); END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_AFTER_INSERT AFTER INSERT ON `notes` " +
+                    "BEGIN INSERT INTO `notes_fts`(`docid`, `title`, `content`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`); END"
+    };
+
+    //version 2 adds the notes_fts full text index
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `notes_fts` USING FTS4(`title` TEXT NOT NULL, `content` TEXT, content=`notes`)");
+            for(String trigger : FTS_SYNC_TRIGGERS){
+                database.execSQL(trigger);
+            }
+            //index the notes that are already there
+            database.execSQL("INSERT INTO `notes_fts`(`notes_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    //version 3 stores the timestamp as milliseconds since the epoch instead of "MM-yyyy", with an index on it
+    //sqlite can't change the type of a column, so the table is copied into a new one and swapped in
+    //ids are copied as they are, so the full text index still points at the right notes and doesn't need rebuilding
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `notes_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`title` TEXT NOT NULL, `content` TEXT, `timestamp` INTEGER NOT NULL)");
+            //"MM-yyyy" becomes midnight on the first of that month in the device's time zone
+            //a missing or malformed timestamp becomes 0, which the list shows as no date
+            database.execSQL("INSERT INTO `notes_new` (`id`, `title`, `content`, `timestamp`) " +
+                    "SELECT `id`, `title`, `content`, " +
+                    "COALESCE(CAST(strftime('%s', substr(`timestamp`, 4, 4) || '-' || substr(`timestamp`, 1, 2) || '-01', 'utc') AS INTEGER) * 1000, 0) " +
+                    "FROM `notes`");
+            //dropping the table drops its triggers too, they're created again on the new table below
+            database.execSQL("DROP TABLE `notes`");
+            database.execSQL("ALTER TABLE `notes_new` RENAME TO `notes`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_timestamp` ON `notes` (`timestamp`)");
+            for(String trigger : FTS_SYNC_TRIGGERS){
+                database.execSQL(trigger);
+            }
+        }
+    };
+
+    //version 4 adds the note_changes log, filled in by triggers from then on
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_changes` (`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`note_id` INTEGER NOT NULL, `type` INTEGER NOT NULL)");
+            for(String trigger : NoteChangeLog.TRIGGERS){
+                database.execSQL(trigger);
+            }
+        }
+    };
+
+    public static final Migration[] ALL = {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4
+    };
+}
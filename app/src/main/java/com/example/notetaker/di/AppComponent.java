@@ -16,6 +16,7 @@ import dagger.android.AndroidInjector;
         modules = {
                 AndroidInjectionModule.class,
                 AppModule.class,
+                DaoDecoratorModule.class,
                 ActivityBuildersModule.class,
                 ViewModelFactoryModule.class,
         }
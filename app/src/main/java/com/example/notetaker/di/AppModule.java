@@ -4,8 +4,17 @@ import android.app.Application;
 
 import androidx.room.Room;
 
+import com.example.notetaker.BuildConfig;
+import com.example.notetaker.db.DatabaseConfig;
+import com.example.notetaker.db.DatabaseExecutors;
+import com.example.notetaker.db.DbSchedulers;
+import com.example.notetaker.db.NoteChangeLog;
 import com.example.notetaker.db.NoteDao;
 import com.example.notetaker.db.NoteDatabase;
+import com.example.notetaker.db.NoteMigrations;
+import com.example.notetaker.metrics.InMemoryRepositoryMetrics;
+import com.example.notetaker.metrics.NoOpRepositoryMetrics;
+import com.example.notetaker.metrics.RepositoryMetrics;
 import com.example.notetaker.repository.NoteRepository;
 
 import javax.inject.Singleton;
@@ -20,23 +29,50 @@ class AppModule {
 
     @Singleton
     @Provides
-    static NoteDatabase provideNoteDatabase(Application application) {
-        return Room.databaseBuilder(
-                application,
-                NoteDatabase.class,
-                DATABASE_NAME
-        ).build();
+    static DatabaseConfig provideDatabaseConfig() {
+        return DatabaseConfig.DEFAULT;
     }
 
     @Singleton
     @Provides
-    static NoteDao provideNoteDao(NoteDatabase noteDatabase) {
-        return noteDatabase.getNoteDao();
+    static DatabaseExecutors provideDatabaseExecutors(DatabaseConfig config) {
+        return new DatabaseExecutors(config.getQueryThreads());
     }
 
     @Singleton
     @Provides
-    static NoteRepository provideNoteRepository(NoteDao noteDao){
-        return new NoteRepository(noteDao);
+    static NoteDatabase provideNoteDatabase(Application application, DatabaseConfig config, DatabaseExecutors executors) {
+        return config.applyTo(
+                Room.databaseBuilder(
+                        application,
+                        NoteDatabase.class,
+                        DATABASE_NAME
+                ),
+                executors
+        ).addMigrations(NoteMigrations.ALL)
+                .addCallback(NoteChangeLog.CALLBACK)
+                .build();
+    }
+
+    @Singleton
+    @Provides
+    static DbSchedulers provideDbSchedulers(DatabaseExecutors executors) {
+        return DbSchedulers.from(executors);
+    }
+
+    //BuildConfig.REPOSITORY_METRICS is on in debug and release, see app/build.gradle
+    @Singleton
+    @Provides
+    static RepositoryMetrics provideRepositoryMetrics() {
+        if(BuildConfig.REPOSITORY_METRICS){
+            return new InMemoryRepositoryMetrics();
+        }
+        return new NoOpRepositoryMetrics();
+    }
+
+    @Singleton
+    @Provides
+    static NoteRepository provideNoteRepository(NoteDao noteDao, DbSchedulers dbSchedulers, RepositoryMetrics metrics){
+        return new NoteRepository(noteDao, dbSchedulers, metrics);
     }
 }
@@ -0,0 +1,101 @@
+package com.example.notetaker.metrics;
+
+import androidx.annotation.Nullable;
+
+import com.example.notetaker.ui.Resource.ErrorCause;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//keeps a latency histogram and error counts by cause for every repository operation, for as long as the process lives
+//nothing is written anywhere, dump() turns it into text, BaseApplication logs it whenever the app goes into the background
+public class InMemoryRepositoryMetrics implements RepositoryMetrics {
+
+    private static final ErrorCause[] CAUSES = ErrorCause.values();
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    @Override
+    public void recordLatency(String operation, long durationNanos) {
+        metricsFor(operation).latency.record(durationNanos);
+    }
+
+    @Override
+    public void recordError(String operation, ErrorCause cause) {
+        metricsFor(operation).errors.incrementAndGet(cause.ordinal());
+    }
+
+    //null if the operation hasn't been called yet
+    @Nullable
+    public LatencyHistogram getLatency(String operation){
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? null : metrics.latency;
+    }
+
+    public long getErrorCount(String operation){
+        long errors = 0;
+        for(ErrorCause cause : CAUSES){
+            errors += getErrorCount(operation, cause);
+        }
+        return errors;
+    }
+
+    public long getErrorCount(String operation, ErrorCause cause){
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? 0 : metrics.errors.get(cause.ordinal());
+    }
+
+    //one line per operation in name order, with the errors by cause underneath it
+    //calls per second are over the whole time since the metrics were created, not just while the app was in use
+    public String dump(){
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder dump = new StringBuilder();
+        dump.append(String.format(Locale.US, "repository metrics over %.1fs%n", seconds));
+        dump.append(String.format(Locale.US, "%-24s %8s %8s %9s %9s %9s %9s %7s%n",
+                "operation", "calls", "calls/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors"));
+        for(Map.Entry<String, OperationMetrics> entry : new TreeMap<>(operations).entrySet()){
+            String operation = entry.getKey();
+            LatencyHistogram latency = entry.getValue().latency;
+            dump.append(String.format(Locale.US, "%-24s %8d %8.2f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                    operation,
+                    latency.getCount(),
+                    latency.getCount() / seconds,
+                    latency.getValueAtPercentile(50) / 1e6,
+                    latency.getValueAtPercentile(90) / 1e6,
+                    latency.getValueAtPercentile(99) / 1e6,
+                    latency.getMaxNanos() / 1e6,
+                    getErrorCount(operation)));
+            for(ErrorCause cause : CAUSES){
+                long count = entry.getValue().errors.get(cause.ordinal());
+                if(count > 0){
+                    dump.append(String.format(Locale.US, "    %s: %d%n", cause, count));
+                }
+            }
+        }
+        return dump.toString();
+    }
+
+    private OperationMetrics metricsFor(String operation){
+        OperationMetrics metrics = operations.get(operation);
+        if(metrics == null){
+            OperationMetrics created = new OperationMetrics();
+            metrics = operations.putIfAbsent(operation, created);
+            if(metrics == null){
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    private static class OperationMetrics {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        //indexed by ErrorCause ordinal
+        final AtomicLongArray errors = new AtomicLongArray(CAUSES.length);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.notetaker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//latencies bucketed the way HdrHistogram does it: every power of two is split into the same number of linear
+//sub-buckets, so a value is kept to within 1/16th of itself (about 6%) anywhere from a microsecond to hours,
+//in a fixed array of 528 counts. Recording is a few shifts and an atomic increment, from any thread, without allocating
+//percentiles are read without stopping the writers, so a dump taken while calls are recorded can be off by those calls
+public class LatencyHistogram {
+
+    //the first 32 buckets are one microsecond wide, every power of two after that gets 16
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    //2^36 microseconds is about 19 hours, anything longer is counted in the last bucket
+    private static final int MAX_VALUE_BITS = 36;
+    static final long MAX_TRACKABLE_MICROS = (1L << MAX_VALUE_BITS) - 1;
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long durationNanos){
+        long micros = Math.min(Math.max(durationNanos / 1000, 0), MAX_TRACKABLE_MICROS);
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max = maxMicros.get();
+        while(micros > max && !maxMicros.compareAndSet(max, micros)){
+            max = maxMicros.get();
+        }
+    }
+
+    public long getCount(){
+        return totalCount.get();
+    }
+
+    public long getMaxNanos(){
+        return maxMicros.get() * 1000;
+    }
+
+    public long getMeanNanos(){
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalMicros.get() * 1000 / count;
+    }
+
+    //the latency that percentile of the calls took no longer than, 0 if nothing was recorded
+    //reported as the top of its bucket, so it's never less than the true value, and never more than the max
+    public long getValueAtPercentile(double percentile){
+        long count = totalCount.get();
+        if(count == 0){
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++){
+            seen += counts.get(i);
+            if(seen >= target){
+                return Math.min(highestValueInBucket(i), maxMicros.get()) * 1000;
+            }
+        }
+        return getMaxNanos();
+    }
+
+    static int bucketIndex(long micros){
+        if(micros < SUB_BUCKET_COUNT){
+            return (int) micros;
+        }
+        //how far the value has to be shifted down to fit in the top half of the sub-buckets
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (micros >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestValueInBucket(int index){
+        if(index < SUB_BUCKET_COUNT){
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
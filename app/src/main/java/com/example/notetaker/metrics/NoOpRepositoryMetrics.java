@@ -0,0 +1,15 @@
+package com.example.notetaker.metrics;
+
+import com.example.notetaker.ui.Resource.ErrorCause;
+
+//throws everything away, for tests and benchmarks that don't look at the metrics
+public class NoOpRepositoryMetrics implements RepositoryMetrics {
+
+    @Override
+    public void recordLatency(String operation, long durationNanos) {
+    }
+
+    @Override
+    public void recordError(String operation, ErrorCause cause) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.notetaker.metrics;
+
+import com.example.notetaker.ui.Resource.ErrorCause;
+
+//what NoteRepository reports about every call it makes to the database
+//it's called on the db threads for every read and write, so implementations have to be thread safe and cheap
+//the app keeps an InMemoryRepositoryMetrics in debug and release builds, tests and benchmarks use NoOpRepositoryMetrics
+public interface RepositoryMetrics {
+
+    String INSERT_NOTE = "insertNote";
+    String UPDATE_NOTE = "updateNote";
+    String DELETE_NOTE = "deleteNote";
+    String INSERT_NOTES = "insertNotes";
+    String UPDATE_NOTES = "updateNotes";
+    String DELETE_NOTES = "deleteNotes";
+    String GET_NOTE = "getNote";
+    String SEARCH = "search";
+    String GET_NOTE_SUMMARIES_AFTER = "getNoteSummariesAfter";
+    String GET_NOTE_SUMMARIES_BEFORE = "getNoteSummariesBefore";
+    String GET_LATEST_CHANGE_SEQ = "getLatestChangeSeq";
+    String GET_CHANGES_AFTER = "getChangesAfter";
+    //a page of the list together with its seq, from the first query to the page being ready
+    String LOAD_NOTE_SUMMARY_PAGE = "loadNoteSummaryPage";
+
+    //how long a call took from the moment it started running on its db thread, whether it succeeded or not
+    void recordLatency(String operation, long durationNanos);
+
+    //a call that failed, or a write that ran but changed nothing (NOT_FOUND), once for every attempt
+    void recordError(String operation, ErrorCause cause);
+}
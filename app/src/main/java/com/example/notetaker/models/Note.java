@@ -8,9 +8,11 @@ import androidx.annotation.Nullable;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "notes")
+//the index on timestamp lets notes be sorted and filtered by date straight from the index
+@Entity(tableName = "notes", indices = {@Index("timestamp")})
 public class Note implements Parcelable {
 
     @PrimaryKey(autoGenerate = true)
@@ -23,17 +25,18 @@ public class Note implements Parcelable {
     @ColumnInfo(name = "content")
     private String content;
 
+    //milliseconds since the epoch, when the note was last edited
     @ColumnInfo(name = "timestamp")
-    private String timestamp;
+    private long timestamp;
 
-    public Note(@NonNull String title, String content, String timestamp) {
+    public Note(@NonNull String title, String content, long timestamp) {
         this.title = title;
         this.content = content;
         this.timestamp = timestamp;
     }
 
     @Ignore
-    public Note(int id, @NonNull String title, String content, String timestamp) {
+    public Note(int id, @NonNull String title, String content, long timestamp) {
         this.id = id;
         this.title = title;
         this.content = content;
@@ -56,7 +59,7 @@ public class Note implements Parcelable {
         id = in.readInt();
         title = in.readString();
         content = in.readString();
-        timestamp = in.readString();
+        timestamp = in.readLong();
     }
 
     public static final Creator<Note> CREATOR = new Creator<Note>() {
@@ -96,11 +99,11 @@ public class Note implements Parcelable {
         this.content = content;
     }
 
-    public String getTimestamp() {
+    public long getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(String timestamp) {
+    public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
 
@@ -110,7 +113,7 @@ public class Note implements Parcelable {
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", content='" + content + '\'' +
-                ", timestamp='" + timestamp + '\'' +
+                ", timestamp=" + timestamp +
                 '}';
     }
 
@@ -124,7 +127,7 @@ public class Note implements Parcelable {
         dest.writeInt(id);
         dest.writeString(title);
         dest.writeString(content);
-        dest.writeString(timestamp);
+        dest.writeLong(timestamp);
     }
 
     @Override
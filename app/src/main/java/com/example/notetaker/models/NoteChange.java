@@ -0,0 +1,43 @@
+package com.example.notetaker.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+//one row of the change log, written by the triggers in NoteChangeLog for every insert, update and delete on notes
+//seq only ever goes up, AUTOINCREMENT makes sure a number is never handed out twice even after rows are deleted
+@Entity(tableName = "note_changes")
+public class NoteChange {
+
+    public static final int TYPE_INSERT = 0;
+    public static final int TYPE_UPDATE = 1;
+    public static final int TYPE_DELETE = 2;
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "seq")
+    private long seq;
+
+    @ColumnInfo(name = "note_id")
+    private int noteId;
+
+    @ColumnInfo(name = "type")
+    private int type;
+
+    public NoteChange(long seq, int noteId, int type) {
+        this.seq = seq;
+        this.noteId = noteId;
+        this.type = type;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getNoteId() {
+        return noteId;
+    }
+
+    public int getType() {
+        return type;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.notetaker.models;
+
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+
+//a change from the change log, together with the note as it is now
+//note is null when the note isn't in the table anymore, either it was deleted or it was deleted after this change
+public class NoteDelta {
+
+    @ColumnInfo(name = "seq")
+    private long seq;
+
+    @ColumnInfo(name = "note_id")
+    private int noteId;
+
+    @ColumnInfo(name = "type")
+    private int type;
+
+    @Nullable
+    @Embedded
+    private NoteSummary note;
+
+    public NoteDelta(long seq, int noteId, int type, @Nullable NoteSummary note) {
+        this.seq = seq;
+        this.noteId = noteId;
+        this.type = type;
+        this.note = note;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getNoteId() {
+        return noteId;
+    }
+
+    //one of the NoteChange types
+    public int getType() {
+        return type;
+    }
+
+    @Nullable
+    public NoteSummary getNote() {
+        return note;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteDelta{" +
+                "seq=" + seq +
+                ", noteId=" + noteId +
+                ", type=" + type +
+                ", note=" + note +
+                '}';
+    }
+}
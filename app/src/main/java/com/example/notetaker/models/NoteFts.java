@@ -0,0 +1,46 @@
+package com.example.notetaker.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+//full text index over the title and content of the notes table
+//contentEntity makes this an external content table: the text itself stays in the notes table,
+//and Room keeps the index in sync with triggers on inserts, updates and deletes
+@Fts4(contentEntity = Note.class)
+@Entity(tableName = "notes_fts")
+public class NoteFts {
+
+    //the rowid of an external content table is the id of the note it indexes
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowid;
+
+    @NonNull
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "content")
+    private String content;
+
+    public NoteFts(int rowid, @NonNull String title, String content) {
+        this.rowid = rowid;
+        this.title = title;
+        this.content = content;
+    }
+
+    public int getRowid() {
+        return rowid;
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
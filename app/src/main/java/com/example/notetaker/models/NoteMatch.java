@@ -0,0 +1,28 @@
+package com.example.notetaker.models;
+
+import androidx.room.ColumnInfo;
+
+//a note that matched a full text query, with the matchinfo used to rank it
+//reading this doesn't touch the content of the note, only the full text index
+public class NoteMatch {
+
+    @ColumnInfo(name = "id")
+    private int id;
+
+    //matchinfo(notes_fts, 'pcx'), see SearchUtil.rank()
+    @ColumnInfo(name = "matchInfo")
+    private byte[] matchInfo;
+
+    public NoteMatch(int id, byte[] matchInfo) {
+        this.id = id;
+        this.matchInfo = matchInfo;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public byte[] getMatchInfo() {
+        return matchInfo;
+    }
+}
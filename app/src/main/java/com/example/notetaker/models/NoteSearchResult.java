@@ -0,0 +1,19 @@
+package com.example.notetaker.models;
+
+import androidx.room.ColumnInfo;
+
+//a note summary that came back from a search, with a snippet of the text around the match
+public class NoteSearchResult extends NoteSummary {
+
+    @ColumnInfo(name = "snippet")
+    private String snippet;
+
+    public NoteSearchResult(int id, String title, long timestamp, String snippet) {
+        super(id, title, timestamp);
+        this.snippet = snippet;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+}
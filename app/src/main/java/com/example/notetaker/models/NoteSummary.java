@@ -0,0 +1,81 @@
+package com.example.notetaker.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Ignore;
+
+import com.example.notetaker.util.DateUtil;
+
+//the columns the notes list actually displays
+//the content column is never read for the list, so a page only costs as much as its titles
+public class NoteSummary {
+
+    @ColumnInfo(name = "id")
+    private int id;
+
+    @NonNull
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "timestamp")
+    private long timestamp;
+
+    //the timestamp as the list shows it, worked out once when the row is read instead of on every bind
+    @Ignore
+    @NonNull
+    private final String displayTimestamp;
+
+    public NoteSummary(int id, @NonNull String title, long timestamp) {
+        this.id = id;
+        this.title = title;
+        this.timestamp = timestamp;
+        this.displayTimestamp = DateUtil.getDisplayTimestamp(timestamp);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @NonNull
+    public String getDisplayTimestamp() {
+        return displayTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if(obj == null){
+            return false;
+        }
+        if(getClass() != obj.getClass()){
+            return false;
+        }
+        NoteSummary summary = (NoteSummary) obj;
+        return summary.getId() == getId()
+                && summary.getTitle().equals(getTitle())
+                && summary.getTimestamp() == getTimestamp();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * id + title.hashCode();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.notetaker.models;
+
+import java.util.List;
+
+//a page of note summaries, with the seq of the latest change to the notes table read just before it
+//every change the page could be missing comes after that seq in the change log
+public class NoteSummaryPage {
+
+    private final long seq;
+    private final List<NoteSummary> notes;
+
+    public NoteSummaryPage(long seq, List<NoteSummary> notes) {
+        this.seq = seq;
+        this.notes = notes;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public List<NoteSummary> getNotes() {
+        return notes;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteSummaryPage{" +
+                "seq=" + seq +
+                ", notes=" + notes +
+                '}';
+    }
+}
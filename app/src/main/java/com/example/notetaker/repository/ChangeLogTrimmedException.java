@@ -0,0 +1,23 @@
+package com.example.notetaker.repository;
+
+//observeChangesAfter was asked for changes that have already been deleted from the change log
+//there's nothing to bring the caller's page up to date with, it has to read the page again and observe from its seq
+public class ChangeLogTrimmedException extends Exception {
+
+    private final long afterSeq;
+    private final long trimmedBeforeSeq;
+
+    public ChangeLogTrimmedException(long afterSeq, long trimmedBeforeSeq) {
+        super("Changes after " + afterSeq + " were trimmed, the change log starts at " + trimmedBeforeSeq);
+        this.afterSeq = afterSeq;
+        this.trimmedBeforeSeq = trimmedBeforeSeq;
+    }
+
+    public long getAfterSeq() {
+        return afterSeq;
+    }
+
+    public long getTrimmedBeforeSeq() {
+        return trimmedBeforeSeq;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.notetaker.repository;
+
+import android.database.sqlite.SQLiteCantOpenDatabaseException;
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabaseCorruptException;
+import android.database.sqlite.SQLiteDatabaseLockedException;
+import android.database.sqlite.SQLiteDiskIOException;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteFullException;
+import android.database.sqlite.SQLiteTableLockedException;
+
+import com.example.notetaker.ui.Resource.ErrorCause;
+
+//turns what a db call threw into a Resource.ErrorCause
+//the framework has an exception per sqlite error code for most of them, a generic SQLiteException is only
+//looked into by its message, which is where the code ends up ("database is locked (code 5 SQLITE_BUSY)")
+//the exception may come wrapped, e.g. by rx, so its causes are looked at too
+public class ErrorClassifier {
+
+    //deep enough for a wrapper or two, a cycle in the causes can't keep it going
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    public static ErrorCause classify(Throwable throwable){
+        Throwable error = throwable;
+        for(int depth = 0; error != null && depth < MAX_CAUSE_DEPTH; depth++){
+            ErrorCause cause = classifyOne(error);
+            if(cause != ErrorCause.UNKNOWN){
+                return cause;
+            }
+            error = error.getCause();
+        }
+        return ErrorCause.UNKNOWN;
+    }
+
+    //busy and locked go away once the other connection finishes, the same write is worth trying again
+    public static boolean isTransient(ErrorCause cause){
+        return cause == ErrorCause.LOCKED;
+    }
+
+    private static ErrorCause classifyOne(Throwable error){
+        if(error instanceof SQLiteConstraintException){
+            return ErrorCause.CONSTRAINT;
+        }
+        if(error instanceof SQLiteDatabaseLockedException || error instanceof SQLiteTableLockedException){
+            return ErrorCause.LOCKED;
+        }
+        if(error instanceof SQLiteFullException){
+            return ErrorCause.DISK_FULL;
+        }
+        if(error instanceof SQLiteDiskIOException
+                || error instanceof SQLiteDatabaseCorruptException
+                || error instanceof SQLiteCantOpenDatabaseException){
+            return ErrorCause.DISK_IO;
+        }
+        if(error instanceof SQLiteException && error.getMessage() != null){
+            String message = error.getMessage();
+            if(message.contains("SQLITE_BUSY") || message.contains("SQLITE_LOCKED") || message.contains("database is locked")){
+                return ErrorCause.LOCKED;
+            }
+            if(message.contains("SQLITE_FULL")){
+                return ErrorCause.DISK_FULL;
+            }
+            if(message.contains("SQLITE_CONSTRAINT")){
+                return ErrorCause.CONSTRAINT;
+            }
+        }
+        return ErrorCause.UNKNOWN;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.notetaker.repository;
+
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import com.example.notetaker.models.Note;
+
+//full notes by id, least recently used first out
+//bounded by both the number of notes and roughly how much memory their text takes up:
+//the cache is measured in bytes, and every note costs at least maxBytes / maxNotes,
+//so no more than maxNotes fit however small they are, and fewer fit when they're long
+//notes are copied on the way in and out, so editing a note that came from the cache can't change what's cached
+public class NoteCache {
+
+    //the Note object and the two String objects, without their characters
+    static final int NOTE_OVERHEAD_BYTES = 64;
+
+    private final LruCache<Integer, Note> notes;
+    private final int maxBytes;
+
+    public NoteCache(int maxNotes, int maxBytes) {
+        this.maxBytes = maxBytes;
+        final int minNoteBytes = maxBytes / maxNotes;
+        notes = new LruCache<Integer, Note>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer id, Note note) {
+                return Math.max(minNoteBytes, approximateBytes(note));
+            }
+        };
+    }
+
+    //two bytes for every character of the title and content
+    static int approximateBytes(Note note){
+        int chars = 0;
+        if(note.getTitle() != null){
+            chars += note.getTitle().length();
+        }
+        if(note.getContent() != null){
+            chars += note.getContent().length();
+        }
+        return NOTE_OVERHEAD_BYTES + 2 * chars;
+    }
+
+    @Nullable
+    public Note get(int id){
+        Note note = notes.get(id);
+        return note == null ? null : new Note(note);
+    }
+
+    //a note bigger than the whole cache isn't kept, LruCache would throw everything else out to make room for it first
+    public void put(Note note){
+        if(approximateBytes(note) > maxBytes){
+            notes.remove(note.getId());
+            return;
+        }
+        notes.put(note.getId(), new Note(note));
+    }
+
+    public void remove(int id){
+        notes.remove(id);
+    }
+
+    public void clear(){
+        notes.evictAll();
+    }
+
+    public int hitCount(){
+        return notes.hitCount();
+    }
+
+    public int missCount(){
+        return notes.missCount();
+    }
+
+    public int evictionCount(){
+        return notes.evictionCount();
+    }
+
+    public int noteCount(){
+        return notes.snapshot().size();
+    }
+
+    //the approximate bytes held, never less than the minimum per note
+    public int sizeBytes(){
+        return notes.size();
+    }
+}
@@ -1,22 +1,57 @@
 package com.example.notetaker.repository;
 
 import androidx.annotation.NonNull;
-import androidx.lifecycle.LiveData;
-import androidx.lifecycle.LiveDataReactiveStreams;
 
+import com.example.notetaker.db.DbSchedulers;
 import com.example.notetaker.db.NoteDao;
+import com.example.notetaker.metrics.RepositoryMetrics;
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteMatch;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.models.NoteSummaryPage;
 import com.example.notetaker.ui.Resource;
+import com.example.notetaker.ui.Resource.ErrorCause;
+import com.example.notetaker.util.SearchUtil;
 
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import io.reactivex.Completable;
 import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.SingleSource;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.functions.Predicate;
+
+import static com.example.notetaker.metrics.RepositoryMetrics.DELETE_NOTE;
+import static com.example.notetaker.metrics.RepositoryMetrics.DELETE_NOTES;
+import static com.example.notetaker.metrics.RepositoryMetrics.GET_CHANGES_AFTER;
+import static com.example.notetaker.metrics.RepositoryMetrics.GET_LATEST_CHANGE_SEQ;
+import static com.example.notetaker.metrics.RepositoryMetrics.GET_NOTE;
+import static com.example.notetaker.metrics.RepositoryMetrics.GET_NOTE_SUMMARIES_AFTER;
+import static com.example.notetaker.metrics.RepositoryMetrics.GET_NOTE_SUMMARIES_BEFORE;
+import static com.example.notetaker.metrics.RepositoryMetrics.INSERT_NOTE;
+import static com.example.notetaker.metrics.RepositoryMetrics.INSERT_NOTES;
+import static com.example.notetaker.metrics.RepositoryMetrics.LOAD_NOTE_SUMMARY_PAGE;
+import static com.example.notetaker.metrics.RepositoryMetrics.SEARCH;
+import static com.example.notetaker.metrics.RepositoryMetrics.UPDATE_NOTE;
+import static com.example.notetaker.metrics.RepositoryMetrics.UPDATE_NOTES;
 
 @Singleton
 public class NoteRepository {
@@ -29,16 +64,61 @@ public class NoteRepository {
     public static final String UPDATE_FAILURE = "Update failure";
     public static final String INSERT_SUCCESS = "Insert success";
     public static final String INSERT_FAILURE = "Insert failure";
+    public static final String NOTE_FOUND = "Note found";
+    public static final String NOTE_NOT_FOUND = "Note not found";
+
+    //the most search results that are shown, only these get a snippet read for them
+    public static final int SEARCH_RESULT_LIMIT = 50;
+    //the most matches that are ranked, the newest ones, so a query that matches every note still reads a bounded
+    //number of matchinfo blobs, a note older than these can only be found with a more specific query
+    public static final int SEARCH_CANDIDATE_LIMIT = 500;
+
+    //notes that were opened or written recently, so going back into one doesn't read it from disk again
+    public static final int NOTE_CACHE_MAX_NOTES = 50;
+    public static final int NOTE_CACHE_MAX_BYTES = 512 * 1024;
+
+    //how many times a write that found the database locked is tried again, and the wait before the first retry,
+    //doubled for each one after it
+    public static final int WRITE_RETRY_LIMIT = 3;
+    public static final long WRITE_RETRY_BASE_DELAY_MS = 50;
+
+    //a prefetched page older than this is read again, it was meant for a list that's opened while the app starts
+    public static final long PREFETCH_MAX_AGE_MS = 10 * 1000;
 
-    private int timeDelay = 0;
-    private TimeUnit timeUnit = TimeUnit.SECONDS;
+    //the change log is trimmed once every observer has read this many changes past the last trim,
+    //so it holds about this many rows plus however far the slowest observer is behind
+    public static final int CHANGE_LOG_TRIM_INTERVAL = 100;
 
     @NonNull
     private final NoteDao noteDao;
 
+    @NonNull
+    private final DbSchedulers dbSchedulers;
+
+    //the first page of the list, read while the app is starting, see prefetchNoteSummaryPage
+    private final Object prefetchLock = new Object();
+    private Flowable<NoteSummaryPage> prefetchedPage;
+    private int prefetchedAfterId;
+    private int prefetchedLimit;
+    private long prefetchedAtNanos;
+
+    //the seq every observeChangesAfter subscriber has read up to, the change log is only trimmed below the lowest
+    //a subscriber that starts from before the last trim gets a ChangeLogTrimmedException instead
+    private final List<AtomicLong> changeReaders = new ArrayList<>();
+    //guarded by changeReaders
+    private long changesTrimmedBeforeSeq;
+
+    //write-through: every write that reaches the table is made to the cache too, so it never has to be thrown away
+    private final NoteCache noteCache = new NoteCache(NOTE_CACHE_MAX_NOTES, NOTE_CACHE_MAX_BYTES);
+
+    @NonNull
+    private final RepositoryMetrics metrics;
+
     @Inject
-    public NoteRepository(@NonNull NoteDao noteDao){
+    public NoteRepository(@NonNull NoteDao noteDao, @NonNull DbSchedulers dbSchedulers, @NonNull RepositoryMetrics metrics){
         this.noteDao = noteDao;
+        this.dbSchedulers = dbSchedulers;
+        this.metrics = metrics;
     }
 
 
@@ -48,56 +128,55 @@ public class NoteRepository {
 
         checkTitle(note);
 
-        return noteDao.insertNote(note)
-                .delaySubscription(timeDelay, timeUnit)
-                .map(new Function<Long, Integer>() {
+        return retryWhenLocked(measuredWrite(INSERT_NOTE, noteDao.insertNote(note)))
+                .map(new Function<Long, Resource<Integer>>() {
                     @Override
-                    public Integer apply(Long aLong) throws Exception {
+                    public Resource<Integer> apply(Long aLong) throws Exception {
                         long l = aLong;
-                        return (int)l;
+                        int id = (int) l;
+                        if(id > 0){
+                            //a new note is usually opened again straight away, the caller's note isn't given the id
+                            Note inserted = new Note(note);
+                            inserted.setId(id);
+                            noteCache.put(inserted);
+                            return Resource.success(id, INSERT_SUCCESS);
+                        }
+                        return Resource.error(null, INSERT_FAILURE, causeOfRows(id));
                     }
                 })
-                .onErrorReturn(new Function<Throwable, Integer>() {
+                .onErrorReturn(new Function<Throwable, Resource<Integer>>() {
                     @Override
-                    public Integer apply(Throwable throwable) throws Exception {
+                    public Resource<Integer> apply(Throwable throwable) throws Exception {
                         //must handle error here, as live data can't handle it
-                        return -1;
+                        return Resource.error(null, INSERT_FAILURE, ErrorClassifier.classify(throwable));
                     }
                 })
-                .map(new Function<Integer, Resource<Integer>>() {
-                    @Override
-                    public Resource<Integer> apply(Integer integer) throws Exception {
-                        if(integer > 0){
-                            return Resource.success(integer, INSERT_SUCCESS);
-                        }
-                        return Resource.error(null, INSERT_FAILURE);
-                    }
-                })
-                .subscribeOn(Schedulers.io())
+                .subscribeOn(dbSchedulers.writes())
                 .toFlowable();
     }
 
     public Flowable<Resource<Integer>> updateNote(final Note note) throws Exception {
         checkTitle(note);
 
-        return noteDao.updateNote(note)
-                .delay(timeDelay, timeUnit)
-                .onErrorReturn(new Function<Throwable, Integer>() {
-                    @Override
-                    public Integer apply(Throwable throwable) throws Exception {
-                        return -1;
-                    }
-                })
+        return retryWhenLocked(measuredWrite(UPDATE_NOTE, noteDao.updateNote(note)))
                 .map(new Function<Integer, Resource<Integer>>() {
                     @Override
                     public Resource<Integer> apply(Integer integer) throws Exception {
                         if(integer > 0){
+                            //the note that was just saved is the one most likely to be opened again
+                            noteCache.put(note);
                             return Resource.success(integer, UPDATE_SUCCESS);
                         }
-                        return Resource.error(integer, UPDATE_FAILURE);
+                        return Resource.error(integer, UPDATE_FAILURE, causeOfRows(integer));
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, Resource<Integer>>() {
+                    @Override
+                    public Resource<Integer> apply(Throwable throwable) throws Exception {
+                        return Resource.error(null, UPDATE_FAILURE, ErrorClassifier.classify(throwable));
                     }
                 })
-                .subscribeOn(Schedulers.io())
+                .subscribeOn(dbSchedulers.writes())
                 .toFlowable();
     }
 
@@ -109,34 +188,543 @@ public class NoteRepository {
         }
     }
 
-    public LiveData<Resource<Integer>> deleteNote(final Note note) throws Exception {
+    public Flowable<Resource<Integer>> deleteNote(final Note note) throws Exception {
 
         checkId(note);
+        //removed before the delete runs, so the note can't be read from the cache while it's being deleted
+        noteCache.remove(note.getId());
+
+        return retryWhenLocked(measuredWrite(DELETE_NOTE, noteDao.deleteNote(note)))
+                .map(new Function<Integer, Resource<Integer>>() {
+                    @Override
+                    public Resource<Integer> apply(Integer integer) throws Exception {
+                        if(integer > 0){
+                            return Resource.success(integer, DELETE_SUCCESS);
+                        }
+                        return Resource.error(null, DELETE_FAILURE, causeOfRows(integer));
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, Resource<Integer>>() {
+                    @Override
+                    public Resource<Integer> apply(Throwable throwable) throws Exception {
+                        return Resource.error(null, DELETE_FAILURE, ErrorClassifier.classify(throwable));
+                    }
+                })
+                .subscribeOn(dbSchedulers.writes())
+                .toFlowable();
+    }
+
+    //batch writes run in a single transaction in the dao, and come back as one Resource holding a result per note
+    //the Resource is a success only if every note was written, otherwise it's an error still carrying the per note results
+    //a batch that fails on a lock rolled back as a whole, so it's retried as a whole
+    public Flowable<Resource<int[]>> insertNotes(final List<Note> notes) throws Exception {
+        for(Note note : notes){
+            checkTitle(note);
+        }
+
+        return retryWhenLocked(measured(INSERT_NOTES, Single.fromCallable(new Callable<int[]>() {
+                    @Override
+                    public int[] call() throws Exception {
+                        return noteDao.insertNotes(notes);
+                    }
+                })))
+                .map(new Function<int[], Resource<int[]>>() {
+                    @Override
+                    public Resource<int[]> apply(int[] rows) throws Exception {
+                        for(int i = 0; i < rows.length; i++){
+                            if(rows[i] > 0){
+                                Note inserted = new Note(notes.get(i));
+                                inserted.setId(rows[i]);
+                                noteCache.put(inserted);
+                            }
+                        }
+                        return toBatchResource(INSERT_NOTES, rows, INSERT_SUCCESS, INSERT_FAILURE);
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, Resource<int[]>>() {
+                    @Override
+                    public Resource<int[]> apply(Throwable throwable) throws Exception {
+                        return Resource.error(null, INSERT_FAILURE, ErrorClassifier.classify(throwable));
+                    }
+                })
+                .subscribeOn(dbSchedulers.writes())
+                .toFlowable();
+    }
+
+    public Flowable<Resource<int[]>> updateNotes(final List<Note> notes) throws Exception {
+        for(Note note : notes){
+            checkTitle(note);
+        }
+
+        return retryWhenLocked(measured(UPDATE_NOTES, Single.fromCallable(new Callable<int[]>() {
+                    @Override
+                    public int[] call() throws Exception {
+                        return noteDao.updateNotes(notes);
+                    }
+                })))
+                .map(new Function<int[], Resource<int[]>>() {
+                    @Override
+                    public Resource<int[]> apply(int[] rows) throws Exception {
+                        for(int i = 0; i < rows.length; i++){
+                            if(rows[i] > 0){
+                                noteCache.put(notes.get(i));
+                            }
+                        }
+                        return toBatchResource(UPDATE_NOTES, rows, UPDATE_SUCCESS, UPDATE_FAILURE);
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, Resource<int[]>>() {
+                    @Override
+                    public Resource<int[]> apply(Throwable throwable) throws Exception {
+                        return Resource.error(null, UPDATE_FAILURE, ErrorClassifier.classify(throwable));
+                    }
+                })
+                .subscribeOn(dbSchedulers.writes())
+                .toFlowable();
+    }
+
+    public Flowable<Resource<int[]>> deleteNotes(final List<Note> notes) throws Exception {
+        for(Note note : notes){
+            checkId(note);
+            noteCache.remove(note.getId());
+        }
+
+        return retryWhenLocked(measured(DELETE_NOTES, Single.fromCallable(new Callable<int[]>() {
+                    @Override
+                    public int[] call() throws Exception {
+                        return noteDao.deleteNotes(notes);
+                    }
+                })))
+                .map(new Function<int[], Resource<int[]>>() {
+                    @Override
+                    public Resource<int[]> apply(int[] rows) throws Exception {
+                        return toBatchResource(DELETE_NOTES, rows, DELETE_SUCCESS, DELETE_FAILURE);
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, Resource<int[]>>() {
+                    @Override
+                    public Resource<int[]> apply(Throwable throwable) throws Exception {
+                        return Resource.error(null, DELETE_FAILURE, ErrorClassifier.classify(throwable));
+                    }
+                })
+                .subscribeOn(dbSchedulers.writes())
+                .toFlowable();
+    }
+
+    private Resource<int[]> toBatchResource(String operation, int[] rows, String successMessage, String failureMessage){
+        for(int row : rows){
+            if(row <= 0){
+                ErrorCause cause = causeOfRows(row);
+                metrics.recordError(operation, cause);
+                return Resource.error(rows, failureMessage, cause);
+            }
+        }
+        return Resource.success(rows, successMessage);
+    }
+
+    //the full note, content included, for when a single note is opened
+    public Flowable<Resource<Note>> getNote(int id){
+        Note cachedNote = noteCache.get(id);
+        if(cachedNote != null){
+            return Flowable.just(Resource.success(cachedNote, NOTE_FOUND));
+        }
+        return measured(GET_NOTE, noteDao.getNote(id))
+                .map(new Function<Note, Resource<Note>>() {
+                    @Override
+                    public Resource<Note> apply(Note note) throws Exception {
+                        noteCache.put(note);
+                        return Resource.success(note, NOTE_FOUND);
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, Resource<Note>>() {
+                    @Override
+                    public Resource<Note> apply(Throwable throwable) throws Exception {
+                        //Room signals a missing row with an EmptyResultSetException
+                        return Resource.error(null, NOTE_NOT_FOUND);
+                    }
+                })
+                .subscribeOn(dbSchedulers.reads())
+                .toFlowable();
+    }
+
+    //how many times getNote was answered from memory, and how many times it had to read the table
+    public int getNoteCacheHitCount(){
+        return noteCache.hitCount();
+    }
+
+    public int getNoteCacheMissCount(){
+        return noteCache.missCount();
+    }
+
+    //full text search over titles and content, best matches first
+    //every match is ranked from the full text index alone, then summaries and snippets are read for the top results
+    public Flowable<List<NoteSearchResult>> search(String input){
+        final String query = SearchUtil.toMatchQuery(input);
+        if(query.isEmpty()){
+            return Flowable.<List<NoteSearchResult>>just(new ArrayList<NoteSearchResult>());
+        }
+
+        return measured(SEARCH, noteDao.getNoteMatches(query, SEARCH_CANDIDATE_LIMIT)
+                .flatMap(new Function<List<NoteMatch>, SingleSource<List<NoteSearchResult>>>() {
+                    @Override
+                    public SingleSource<List<NoteSearchResult>> apply(List<NoteMatch> matches) throws Exception {
+                        if(matches.isEmpty()){
+                            return Single.<List<NoteSearchResult>>just(new ArrayList<NoteSearchResult>());
+                        }
+                        final List<Integer> rankedIds = rankMatches(matches, SEARCH_RESULT_LIMIT);
+                        return noteDao.getNoteSearchResults(query, rankedIds)
+                                .map(new Function<List<NoteSearchResult>, List<NoteSearchResult>>() {
+                                    @Override
+                                    public List<NoteSearchResult> apply(List<NoteSearchResult> results) throws Exception {
+                                        return sortByRank(results, rankedIds);
+                                    }
+                                });
+                    }
+                }))
+                .onErrorReturn(new Function<Throwable, List<NoteSearchResult>>() {
+                    @Override
+                    public List<NoteSearchResult> apply(Throwable throwable) throws Exception {
+                        return new ArrayList<>();
+                    }
+                })
+                .subscribeOn(dbSchedulers.reads())
+                .toFlowable();
+    }
+
+    //ids of the best matches, best first, newest first when two rank the same
+    //only the best limit are kept while the matches are scored, in two primitive arrays kept in rank order,
+    //a match that doesn't beat the worst one kept is dropped without being moved anywhere
+    static List<Integer> rankMatches(List<NoteMatch> matches, int limit){
+        final int count = matches.size();
+        double[] topScores = new double[Math.min(limit, count)];
+        int[] topIds = new int[topScores.length];
+        if(topScores.length == 0){
+            return new ArrayList<>();
+        }
+        int kept = 0;
+        for(int i = 0; i < count; i++){
+            NoteMatch match = matches.get(i);
+            double score = SearchUtil.rank(match.getMatchInfo(), SearchUtil.COLUMN_WEIGHTS);
+            int id = match.getId();
+            if(kept == topScores.length && !ranksAbove(score, id, topScores[kept - 1], topIds[kept - 1])){
+                continue;
+            }
+            int position = kept < topScores.length ? kept++ : kept - 1;
+            while(position > 0 && ranksAbove(score, id, topScores[position - 1], topIds[position - 1])){
+                topScores[position] = topScores[position - 1];
+                topIds[position] = topIds[position - 1];
+                position--;
+            }
+            topScores[position] = score;
+            topIds[position] = id;
+        }
+        List<Integer> rankedIds = new ArrayList<>(kept);
+        for(int i = 0; i < kept; i++){
+            rankedIds.add(topIds[i]);
+        }
+        return rankedIds;
+    }
+
+    private static boolean ranksAbove(double score, int id, double otherScore, int otherId){
+        int byScore = Double.compare(score, otherScore);
+        return byScore > 0 || (byScore == 0 && id > otherId);
+    }
+
+    private List<NoteSearchResult> sortByRank(List<NoteSearchResult> results, List<Integer> rankedIds){
+        Map<Integer, NoteSearchResult> resultsById = new HashMap<>();
+        for(NoteSearchResult result : results){
+            resultsById.put(result.getId(), result);
+        }
+        List<NoteSearchResult> sorted = new ArrayList<>(results.size());
+        for(Integer id : rankedIds){
+            NoteSearchResult result = resultsById.get(id);
+            if(result != null){
+                sorted.add(result);
+            }
+        }
+        return sorted;
+    }
+
+    //returns the page of notes with ids greater than afterId, in ascending id order
+    public Flowable<List<NoteSummary>> getNoteSummariesAfter(int afterId, int limit){
+        return measured(GET_NOTE_SUMMARIES_AFTER, noteDao.getNoteSummariesAfter(afterId, limit))
+                .onErrorReturn(new Function<Throwable, List<NoteSummary>>() {
+                    @Override
+                    public List<NoteSummary> apply(Throwable throwable) throws Exception {
+                        return new ArrayList<>();
+                    }
+                })
+                .subscribeOn(dbSchedulers.reads())
+                .toFlowable();
+    }
+
+    //the page of notes with ids greater than afterId, read together with the seq observeChangesAfter should start from
+    //a page that was prefetched with the same arguments is handed out once instead of being read again
+    //the prefetch is dropped by the first call whatever its arguments, so it can't be handed out long after it was read
+    public Flowable<NoteSummaryPage> getNoteSummaryPage(final int afterId, final int limit){
+        Flowable<NoteSummaryPage> page;
+        synchronized (prefetchLock){
+            page = prefetchedPage;
+            boolean matches = prefetchedAfterId == afterId && prefetchedLimit == limit;
+            boolean fresh = System.nanoTime() - prefetchedAtNanos < TimeUnit.MILLISECONDS.toNanos(PREFETCH_MAX_AGE_MS);
+            prefetchedPage = null;
+            if(!matches || !fresh){
+                page = null;
+            }
+        }
+        if(page == null){
+            return readNoteSummaryPage(afterId, limit);
+        }
+        //the change log may have been trimmed past the prefetched page's seq, it couldn't be brought up to date then
+        return page.concatMap(new Function<NoteSummaryPage, Publisher<NoteSummaryPage>>() {
+            @Override
+            public Publisher<NoteSummaryPage> apply(NoteSummaryPage prefetched) throws Exception {
+                synchronized (changeReaders){
+                    if(!isTrimmedAfter(prefetched.getSeq())){
+                        return Flowable.just(prefetched);
+                    }
+                }
+                return readNoteSummaryPage(afterId, limit);
+            }
+        });
+    }
+
+    //starts reading a page straight away and keeps it for the next getNoteSummaryPage with the same arguments
+    //the first read also opens the database, so this is called at startup while the first screen is being inflated
+    public void prefetchNoteSummaryPage(int afterId, int limit){
+        Flowable<NoteSummaryPage> page = readNoteSummaryPage(afterId, limit).cache();
+        synchronized (prefetchLock){
+            prefetchedPage = page;
+            prefetchedAfterId = afterId;
+            prefetchedLimit = limit;
+            prefetchedAtNanos = System.nanoTime();
+        }
+        page.subscribe();
+    }
+
+    //the seq is read first, so a change made while the page is being read is never missed, at worst it's applied twice
+    //timed as a whole as well as by its two queries, it's what the list waits for, thread hops included
+    private Flowable<NoteSummaryPage> readNoteSummaryPage(final int afterId, final int limit){
+        return Flowable.defer(new Callable<Publisher<NoteSummaryPage>>() {
+            @Override
+            public Publisher<NoteSummaryPage> call() throws Exception {
+                final long start = System.nanoTime();
+                return getLatestChangeSeq()
+                        .concatMap(new Function<Long, Publisher<NoteSummaryPage>>() {
+                            @Override
+                            public Publisher<NoteSummaryPage> apply(final Long seq) throws Exception {
+                                return getNoteSummariesAfter(afterId, limit)
+                                        .map(new Function<List<NoteSummary>, NoteSummaryPage>() {
+                                            @Override
+                                            public NoteSummaryPage apply(List<NoteSummary> notes) throws Exception {
+                                                return new NoteSummaryPage(seq, notes);
+                                            }
+                                        });
+                            }
+                        })
+                        .doOnNext(new Consumer<NoteSummaryPage>() {
+                            @Override
+                            public void accept(NoteSummaryPage page) throws Exception {
+                                metrics.recordLatency(LOAD_NOTE_SUMMARY_PAGE, System.nanoTime() - start);
+                            }
+                        });
+            }
+        });
+    }
+
+    //the seq of the latest change to the notes table
+    //a page read after this only misses the changes observeChangesAfter(seq) emits
+    public Flowable<Long> getLatestChangeSeq(){
+        return measured(GET_LATEST_CHANGE_SEQ, noteDao.getLatestChangeSeq())
+                .onErrorReturn(new Function<Throwable, Long>() {
+                    @Override
+                    public Long apply(Throwable throwable) throws Exception {
+                        //starting from the beginning of the log only means some changes are seen twice
+                        return 0L;
+                    }
+                })
+                .subscribeOn(dbSchedulers.reads())
+                .toFlowable();
+    }
 
-        return LiveDataReactiveStreams.fromPublisher(
-                noteDao.deleteNote(note)
-                        .onErrorReturn(new Function<Throwable, Integer>() {
+    //every insert, update and delete on the notes table after afterSeq, in the order they were made
+    //Room only re-reads the latest seq when the log grows, then just the new changes are read, from the last one that was seen
+    //so the cost of a write is the rows it changed, not the size of the table
+    //if the reads fall behind, the seqs in between are skipped, the next read picks up every change since the last one anyway
+    //fails with ChangeLogTrimmedException if changes after afterSeq have already been trimmed, the caller's page has to be read again
+    public Flowable<List<NoteDelta>> observeChangesAfter(final long afterSeq){
+        return Flowable.defer(new Callable<Publisher<List<NoteDelta>>>() {
+            @Override
+            public Publisher<List<NoteDelta>> call() throws Exception {
+                //one per subscriber, only set by concatMap which reads one batch at a time
+                final AtomicLong lastSeq = new AtomicLong(afterSeq);
+                synchronized (changeReaders){
+                    //checked under the same lock as the trim, so a trim can't slip in between the check and the add
+                    if(isTrimmedAfter(afterSeq)){
+                        return Flowable.<List<NoteDelta>>error(new ChangeLogTrimmedException(afterSeq, changesTrimmedBeforeSeq));
+                    }
+                    changeReaders.add(lastSeq);
+                }
+                return noteDao.observeLatestChangeSeq()
+                        .onBackpressureLatest()
+                        .concatMap(new Function<Long, Publisher<List<NoteDelta>>>() {
                             @Override
-                            public Integer apply(Throwable throwable) throws Exception {
-                                return -1;
+                            public Publisher<List<NoteDelta>> apply(Long latestSeq) throws Exception {
+                                if(latestSeq <= lastSeq.get()){
+                                    return Flowable.empty();
+                                }
+                                return measured(GET_CHANGES_AFTER, noteDao.getChangesAfter(lastSeq.get()))
+                                        .doOnSuccess(new Consumer<List<NoteDelta>>() {
+                                            @Override
+                                            public void accept(List<NoteDelta> deltas) throws Exception {
+                                                if(!deltas.isEmpty()){
+                                                    lastSeq.set(deltas.get(deltas.size() - 1).getSeq());
+                                                }
+                                            }
+                                        })
+                                        .flatMap(new Function<List<NoteDelta>, SingleSource<List<NoteDelta>>>() {
+                                            @Override
+                                            public SingleSource<List<NoteDelta>> apply(List<NoteDelta> deltas) throws Exception {
+                                                return trimChangeLog().toSingleDefault(deltas);
+                                            }
+                                        })
+                                        .toFlowable();
+                            }
+                        })
+                        .filter(new Predicate<List<NoteDelta>>() {
+                            @Override
+                            public boolean test(List<NoteDelta> deltas) throws Exception {
+                                return !deltas.isEmpty();
                             }
                         })
-                        .map(new Function<Integer, Resource<Integer>>() {
+                        .doFinally(new Action() {
                             @Override
-                            public Resource<Integer> apply(Integer integer) throws Exception {
-                                if(integer > 0){
-                                    return Resource.success(integer, DELETE_SUCCESS);
+                            public void run() throws Exception {
+                                synchronized (changeReaders){
+                                    changeReaders.remove(lastSeq);
                                 }
-                                return Resource.error(null, DELETE_FAILURE);
+                            }
+                        });
+            }
+        }).subscribeOn(dbSchedulers.reads());
+    }
+
+    //true if some of the changes after seq may have been deleted, the change at changesTrimmedBeforeSeq itself is kept
+    //guarded by changeReaders
+    private boolean isTrimmedAfter(long seq){
+        return seq + 1 < changesTrimmedBeforeSeq;
+    }
+
+    //deletes the changes every observer has already read, once there are CHANGE_LOG_TRIM_INTERVAL of them
+    //the latest change that was read is kept, so MAX(seq) doesn't go back to 0 and look like an older log
+    //a trim that fails is left for the next one, which deletes everything this one would have
+    private Completable trimChangeLog(){
+        final long beforeSeq;
+        synchronized (changeReaders){
+            long lowestSeq = Long.MAX_VALUE;
+            for(AtomicLong readerSeq : changeReaders){
+                lowestSeq = Math.min(lowestSeq, readerSeq.get());
+            }
+            if(lowestSeq == Long.MAX_VALUE || lowestSeq - changesTrimmedBeforeSeq < CHANGE_LOG_TRIM_INTERVAL){
+                return Completable.complete();
+            }
+            changesTrimmedBeforeSeq = lowestSeq;
+            beforeSeq = lowestSeq;
+        }
+        return noteDao.deleteChangesBefore(beforeSeq)
+                .subscribeOn(dbSchedulers.writes())
+                .toCompletable()
+                .onErrorComplete();
+    }
+
+    //returns the page of notes with ids less than beforeId, also in ascending id order
+    public Flowable<List<NoteSummary>> getNoteSummariesBefore(int beforeId, int limit){
+        return measured(GET_NOTE_SUMMARIES_BEFORE, noteDao.getNoteSummariesBefore(beforeId, limit))
+                .map(new Function<List<NoteSummary>, List<NoteSummary>>() {
+                    @Override
+                    public List<NoteSummary> apply(List<NoteSummary> notes) throws Exception {
+                        //the query reads backwards from the key, flip it so every page has the same order
+                        List<NoteSummary> ascending = new ArrayList<>(notes);
+                        Collections.reverse(ascending);
+                        return ascending;
+                    }
+                })
+                .onErrorReturn(new Function<Throwable, List<NoteSummary>>() {
+                    @Override
+                    public List<NoteSummary> apply(Throwable throwable) throws Exception {
+                        return new ArrayList<>();
+                    }
+                })
+                .subscribeOn(dbSchedulers.reads())
+                .toFlowable();
+    }
+
+    //times a query from when it starts running on its db thread, so the time spent queued for the thread isn't counted
+    //errors are recorded here, before the caller's onErrorReturn turns them into a failed Resource or an empty list
+    private <T> Single<T> measured(final String operation, final Single<T> query){
+        return Single.defer(new Callable<SingleSource<T>>() {
+            @Override
+            public SingleSource<T> call() throws Exception {
+                final long start = System.nanoTime();
+                return query
+                        .doOnSuccess(new Consumer<T>() {
+                            @Override
+                            public void accept(T result) throws Exception {
+                                metrics.recordLatency(operation, System.nanoTime() - start);
                             }
                         })
-                        .subscribeOn(Schedulers.io())
-                        .toFlowable()
-        );
+                        .doOnError(new Consumer<Throwable>() {
+                            @Override
+                            public void accept(Throwable throwable) throws Exception {
+                                metrics.recordLatency(operation, System.nanoTime() - start);
+                                metrics.recordError(operation, ErrorClassifier.classify(throwable));
+                            }
+                        });
+            }
+        });
+    }
+
+    //a single row write that ran but came back without a row is a failure for the caller, so it's counted as one
+    private <T extends Number> Single<T> measuredWrite(final String operation, Single<T> write){
+        return measured(operation, write)
+                .doOnSuccess(new Consumer<T>() {
+                    @Override
+                    public void accept(T rows) throws Exception {
+                        if(rows.longValue() <= 0){
+                            metrics.recordError(operation, causeOfRows(rows.longValue()));
+                        }
+                    }
+                });
     }
 
-    public LiveData<List<Note>> getNotes(){
-        return noteDao.getNotes();
+    //what a write that came back without a row ran into: the dao reports a row that broke a constraint as -1,
+    //and 0 rows means there was no row with that id to change
+    private static ErrorCause causeOfRows(long rows){
+        return rows < 0 ? ErrorCause.CONSTRAINT : ErrorCause.NOT_FOUND;
+    }
+
+    //a write that ran into another connection's lock is tried again, after 50, 100 then 200ms
+    //the wait is a timer on the write scheduler, the write thread isn't blocked and other writes queued behind it carry on
+    //anything else, or a lock still held after the last retry, goes straight on to the caller
+    private <T> Single<T> retryWhenLocked(Single<T> write){
+        return write.retryWhen(new Function<Flowable<Throwable>, Publisher<Object>>() {
+            @Override
+            public Publisher<Object> apply(Flowable<Throwable> errors) throws Exception {
+                //one per subscriber, errors come one at a time
+                final AtomicInteger retries = new AtomicInteger();
+                return errors.concatMap(new Function<Throwable, Publisher<Object>>() {
+                    @Override
+                    public Publisher<Object> apply(Throwable error) throws Exception {
+                        int retry = retries.getAndIncrement();
+                        if(retry >= WRITE_RETRY_LIMIT || !ErrorClassifier.isTransient(ErrorClassifier.classify(error))){
+                            return Flowable.<Object>error(error);
+                        }
+                        return Flowable.timer(WRITE_RETRY_BASE_DELAY_MS << retry, TimeUnit.MILLISECONDS, dbSchedulers.writes())
+                                .cast(Object.class);
+                    }
+                });
+            }
+        });
     }
 
     private void checkId(Note note) throws Exception{
@@ -14,10 +14,19 @@ public class Resource<T> {
     @Nullable
     public final String message;
 
+    //why an ERROR failed, null for SUCCESS and LOADING, and for errors whose cause wasn't looked at
+    @Nullable
+    public final ErrorCause cause;
+
     public Resource(@NonNull Status status, @Nullable T data, @NonNull String message) {
+        this(status, data, message, null);
+    }
+
+    public Resource(@NonNull Status status, @Nullable T data, @NonNull String message, @Nullable ErrorCause cause) {
         this.status = status;
         this.data = data;
         this.message = message;
+        this.cause = cause;
     }
 
     public static <T> Resource<T> success(@NonNull T data, @NonNull String message) {
@@ -28,12 +37,31 @@ public class Resource<T> {
         return new Resource<>(Status.ERROR, data, msg);
     }
 
+    public static <T> Resource<T> error(@Nullable T data, @NonNull String msg, @NonNull ErrorCause cause) {
+        return new Resource<>(Status.ERROR, data, msg, cause);
+    }
+
     public static <T> Resource<T> loading(@Nullable T data) {
         return new Resource<>(Status.LOADING, data, null);
     }
 
     public enum Status {SUCCESS, ERROR, LOADING}
 
+    //what a failed write ran into, so the caller can tell a note that will never save from one that might later
+    public enum ErrorCause {
+        //the note broke a constraint, e.g. a null title or an id that's already taken, the same write fails again
+        CONSTRAINT,
+        //another connection held the database for longer than the repository kept retrying
+        LOCKED,
+        //no space left for the database or its journal
+        DISK_FULL,
+        //the disk couldn't be read or written, or the database file is damaged
+        DISK_IO,
+        //the write ran but changed no rows, the note isn't in the table
+        NOT_FOUND,
+        UNKNOWN
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj.getClass() != getClass() || obj.getClass() != Resource.class) {
@@ -52,6 +80,13 @@ public class Resource<T> {
             }
         }
 
+        //like data, a cause is only compared when this one has one
+        if (this.cause != null) {
+            if (resource.cause != this.cause) {
+                return false;
+            }
+        }
+
         if (resource.message != null) {
             if (this.message == null) {
                 return false;
@@ -3,6 +3,7 @@ package com.example.notetaker.ui.note;
 import android.os.Bundle;
 
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProviders;
 
@@ -23,7 +24,6 @@ import android.widget.TextView;
 import com.example.notetaker.R;
 import com.example.notetaker.models.Note;
 import com.example.notetaker.ui.Resource;
-import com.example.notetaker.util.DateUtil;
 import com.example.notetaker.util.LinedEditText;
 import com.example.notetaker.viewmodels.ViewModelProviderFactory;
 import com.google.android.material.snackbar.Snackbar;
@@ -86,22 +86,41 @@ public class NoteActivity extends DaggerAppCompatActivity implements
 
     private void getIncomingIntent() {
         try {
-            Note note;
-            if(getIntent().hasExtra(getString(R.string.intent_note))){
-                note = new Note((Note)getIntent().getParcelableExtra(getString(R.string.intent_note)));
+            if(getIntent().hasExtra(getString(R.string.intent_note_id))){
                 viewModel.setIsNewNote(false);
+                loadNote(getIntent().getIntExtra(getString(R.string.intent_note_id), -1));
             }
             else{
-                note = new Note("Title", "", DateUtil.getCurrentTimeStamp());
                 viewModel.setIsNewNote(true);
+                viewModel.setNote(new Note("Title", "", System.currentTimeMillis()));
             }
-            viewModel.setNote(note);
         } catch (Exception e) {
             e.printStackTrace();
             showSnackBar(getString(R.string.error_intent_note));
         }
     }
 
+    private void loadNote(int noteId){
+        final LiveData<Resource<Note>> loadAction = viewModel.loadNote(noteId);
+        loadAction.observe(this, new Observer<Resource<Note>>() {
+            @Override
+            public void onChanged(Resource<Note> noteResource) {
+                loadAction.removeObserver(this);
+                try {
+                    if(noteResource != null && noteResource.status == Resource.Status.SUCCESS){
+                        viewModel.setNote(noteResource.data);
+                    }
+                    else{
+                        showSnackBar(getString(R.string.error_intent_note));
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    showSnackBar(getString(R.string.error_intent_note));
+                }
+            }
+        });
+    }
+
 
     private void setListeners(){
         mGestureDetector = new GestureDetector(this, this);
@@ -128,6 +147,37 @@ public class NoteActivity extends DaggerAppCompatActivity implements
             }
         });
 
+        viewModel.observeSaveResult().observe(this, new Observer<Resource<Integer>>() {
+            @Override
+            public void onChanged(Resource<Integer> integerResource) {
+                try {
+                    if(integerResource != null){
+                        switch (integerResource.status){
+
+                            case SUCCESS:{
+                                Log.e(TAG, "onChanged: save note: success..." );
+                                showSnackBar(integerResource.message);
+                                break;
+                            }
+
+                            case ERROR:{
+                                Log.e(TAG, "onChanged: save note: error..." );
+                                showSnackBar(integerResource.message);
+                                break;
+                            }
+
+                            case LOADING:{
+                                Log.e(TAG, "onChanged: save note: loading..." );
+                                break;
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+
         viewModel.observeViewState().observe(this, new Observer<NoteViewModel.ViewState>() {
             @Override
             public void onChanged(NoteViewModel.ViewState viewState) {
@@ -149,42 +199,20 @@ public class NoteActivity extends DaggerAppCompatActivity implements
     private void saveNote(){
         Log.d(TAG, "saveNote: called.");
         try {
-            viewModel.saveNote().observe(this, new Observer<Resource<Integer>>() {
-                @Override
-                public void onChanged(Resource<Integer> integerResource) {
-                    try {
-                        if(integerResource != null){
-                            switch (integerResource.status){
-
-                                case SUCCESS:{
-                                    Log.e(TAG, "onChanged: save note: success..." );
-                                    showSnackBar(integerResource.message);
-                                    break;
-                                }
-
-                                case ERROR:{
-                                    Log.e(TAG, "onChanged: save note: error..." );
-                                    showSnackBar(integerResource.message);
-                                    break;
-                                }
-
-                                case LOADING:{
-                                    Log.e(TAG, "onChanged: save note: loading..." );
-                                    break;
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            });
+            viewModel.saveNote();
         } catch (Exception e) {
             e.printStackTrace();
             showSnackBar(e.getMessage());
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        //don't leave the last edit waiting in the save debounce when the screen goes away
+        viewModel.flushPendingSave();
+    }
+
     public static void hideKeyboard(Activity activity) {
         InputMethodManager imm = (InputMethodManager) activity.getSystemService(Activity.INPUT_METHOD_SERVICE);
         //Find the currently focused view, so we can grab the correct window token from it.
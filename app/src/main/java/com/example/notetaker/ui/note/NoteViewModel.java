@@ -1,5 +1,7 @@
 package com.example.notetaker.ui.note;
 
+import android.util.Log;
+
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.LiveDataReactiveStreams;
 import androidx.lifecycle.MutableLiveData;
@@ -8,14 +10,19 @@ import androidx.lifecycle.ViewModel;
 import com.example.notetaker.models.Note;
 import com.example.notetaker.repository.NoteRepository;
 import com.example.notetaker.ui.Resource;
-import com.example.notetaker.ui.note.NoteInsertUpdateHelper;
-import com.example.notetaker.util.DateUtil;
 
-import org.reactivestreams.Subscription;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
+import io.reactivex.Flowable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.PublishProcessor;
 
 import static com.example.notetaker.repository.NoteRepository.NOTE_TITLE_NULL;
 
@@ -24,6 +31,10 @@ public class NoteViewModel extends ViewModel {
 
     private static final String TAG = "NoteViewModel";
     public static final String NO_CONTENT_ERROR = "Can't save note with no content";
+    public static final String SAVE_ERROR = "Something went wrong";
+
+    //saves that arrive closer together than this are written to the db as one save of the latest note
+    public static final long SAVE_DEBOUNCE_MS = 500;
 
 
     public enum ViewState {VIEW, EDIT}
@@ -33,36 +44,97 @@ public class NoteViewModel extends ViewModel {
     // vars
     private MutableLiveData<Note> note  = new MutableLiveData<>();
     private MutableLiveData<ViewState> viewState = new MutableLiveData<>();
+    private MutableLiveData<Resource<Integer>> saveResult = new MutableLiveData<>();
+    //main thread only, isNewNote is set by the activity and turned off once the insert's id arrives
     private boolean isNewNote;
-    private Subscription updateSubscription, insertSubscription;
+    //the id the insert gave the note, put on the copies that are saved after it rather than on the note in observeNote()
+    private int noteId = -1;
+    //save pipeline only, it writes one note at a time so this is never read and written at once
+    //it's set as soon as the insert returns, a save queued before the id reaches the main thread still becomes an update
+    private int insertedNoteId = -1;
+
+    // save pipeline
+    private final PublishProcessor<SaveRequest> saveRequests = PublishProcessor.create();
+    //the newest request that hasn't been written, taken by the write that runs next whichever request started it
+    private final AtomicReference<SaveRequest> pendingSave = new AtomicReference<>();
+    private final PublishProcessor<Object> flushRequests = PublishProcessor.create();
 
     @Inject
     public NoteViewModel(NoteRepository noteRepository) {
         this.noteRepository = noteRepository;
+        subscribeSavePipeline();
     }
 
-    public LiveData<Resource<Integer>> insertNote() throws Exception {
-        return LiveDataReactiveStreams.fromPublisher(
-                noteRepository.insertNote(note.getValue())
-                .doOnSubscribe(new Consumer<Subscription>() {
+    //every save request replaces the one waiting before it, a note is only written once no newer request
+    //has come in for SAVE_DEBOUNCE_MS, or straight away when flushPendingSave() is called
+    //concatMap writes one note at a time, so an update never runs before the insert that gives the note its id
+    //concatMap still holds requests that came through while a write was running, so each write takes the newest
+    //pending request instead of the one that started it, and a request that finds nothing pending writes nothing
+    private void subscribeSavePipeline(){
+        saveRequests
+                .debounce(new Function<SaveRequest, Publisher<Object>>() {
                     @Override
-                    public void accept(Subscription subscription) throws Exception {
-                        insertSubscription = subscription;
+                    public Publisher<Object> apply(SaveRequest request) throws Exception {
+                        return Flowable.<Object>merge(
+                                Flowable.timer(SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS),
+                                flushRequests
+                        );
                     }
                 })
-        );
-    }
-
-    public LiveData<Resource<Integer>> updateNote() throws Exception{
-        return LiveDataReactiveStreams.fromPublisher(
-                noteRepository.updateNote(note.getValue())
-                .doOnSubscribe(new Consumer<Subscription>() {
+                .onBackpressureLatest()
+                .concatMap(new Function<SaveRequest, Publisher<Resource<Integer>>>() {
                     @Override
-                    public void accept(Subscription subscription) throws Exception {
-                        updateSubscription = subscription;
+                    public Publisher<Resource<Integer>> apply(SaveRequest ignored) throws Exception {
+                        SaveRequest request = pendingSave.getAndSet(null);
+                        if(request == null){
+                            return Flowable.empty();
+                        }
+                        return writeNote(request);
                     }
                 })
-        );
+                //results arrive in the order the writes ran, so the first success of a new note is its insert
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<Resource<Integer>>() {
+                    @Override
+                    public void accept(Resource<Integer> resource) throws Exception {
+                        if(isNewNote && resource.status == Resource.Status.SUCCESS && resource.data != null){
+                            isNewNote = false;
+                            noteId = resource.data;
+                        }
+                        saveResult.setValue(resource);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        Log.e(TAG, "save pipeline: " + throwable.getMessage());
+                    }
+                });
+    }
+
+    private Flowable<Resource<Integer>> writeNote(SaveRequest request){
+        try {
+            if(request.isNewNote && insertedNoteId < 0){
+                return noteRepository.insertNote(request.note)
+                        .doOnNext(new Consumer<Resource<Integer>>() {
+                            @Override
+                            public void accept(Resource<Integer> resource) throws Exception {
+                                if(resource.status == Resource.Status.SUCCESS && resource.data != null){
+                                    insertedNoteId = resource.data;
+                                }
+                            }
+                        });
+            }
+            //a save requested before the insert finished doesn't have the new id yet
+            Note note = request.note;
+            if(note.getId() == 0 && insertedNoteId > 0){
+                note = new Note(note);
+                note.setId(insertedNoteId);
+            }
+            return noteRepository.updateNote(note);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Flowable.just(Resource.<Integer>error(null, SAVE_ERROR));
+        }
     }
 
     public LiveData<Note> observeNote(){
@@ -73,6 +145,15 @@ public class NoteViewModel extends ViewModel {
         return viewState;
     }
 
+    public LiveData<Resource<Integer>> observeSaveResult(){
+        return saveResult;
+    }
+
+    //the note is read by id rather than being passed in through the intent
+    public LiveData<Resource<Note>> loadNote(int noteId){
+        return LiveDataReactiveStreams.fromPublisher(noteRepository.getNote(noteId));
+    }
+
     public void setViewState(ViewState viewState){
         this.viewState.setValue(viewState);
     }
@@ -81,66 +162,34 @@ public class NoteViewModel extends ViewModel {
         this.isNewNote = isNewNote;
     }
 
-    public LiveData<Resource<Integer>> saveNote() throws Exception{
+    //queues the current note to be written, the result is posted to observeSaveResult()
+    public void saveNote() throws Exception{
         if(!shouldAllowSave()){
             throw new Exception(NO_CONTENT_ERROR);
         }
-        cancelPendingTransactions();
-        //logic for deciding whether to return insert note or update note
-
-        return new NoteInsertUpdateHelper<Integer>(){
-
-            @Override
-            public void setNoteId(int noteId) {
-                isNewNote = false;
-                Note currentNote = note.getValue();
-                currentNote.setId(noteId);
-                note.setValue(currentNote);
-            }
-
-            @Override
-            public LiveData<Resource<Integer>> getAction() throws Exception {
-                if(isNewNote){
-                    return insertNote();
-                } else
-                    return updateNote();
-            }
-
-            @Override
-            public String defineAction() {
-                if(isNewNote){
-                    return ACTION_INSERT;
-                } else {
-                    return ACTION_UPDATE;
-                }
-            }
-
-            @Override
-            public void onTransactionComplete() {
-                updateSubscription = null;
-                insertSubscription = null;
-            }
-        }.getAsLiveData();
-    }
-
-    private void cancelPendingTransactions(){
-        if(insertSubscription != null){
-            cancelInsertTransaction();
-        }
-
-        if(updateSubscription != null){
-            cancelUpdateTransaction();
+        //the note and whether it's new are read here, on the main thread, the write thread only gets this copy
+        Note current = note.getValue();
+        if(current.getId() == 0 && noteId > 0){
+            current = new Note(current);
+            current.setId(noteId);
         }
+        SaveRequest request = new SaveRequest(current, isNewNote);
+        pendingSave.set(request);
+        saveRequests.onNext(request);
     }
 
-    private void cancelUpdateTransaction(){
-        updateSubscription.cancel();
-        updateSubscription = null;
+    //writes the queued note now instead of waiting for the debounce, e.g. when the screen is going away
+    public void flushPendingSave(){
+        flushRequests.onNext(Boolean.TRUE);
     }
 
-    private void cancelInsertTransaction(){
-        insertSubscription.cancel();
-        insertSubscription = null;
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        //completing the requests emits anything still queued, and lets a write that is already running finish
+        //disposing instead would drop the last save
+        saveRequests.onComplete();
+        flushRequests.onComplete();
     }
 
     private boolean shouldAllowSave() throws Exception {
@@ -161,7 +210,7 @@ public class NoteViewModel extends ViewModel {
             Note updatedNote = new Note(note.getValue());
             updatedNote.setTitle(title);
             updatedNote.setContent(content);
-            updatedNote.setTimestamp(DateUtil.getCurrentTimeStamp());
+            updatedNote.setTimestamp(System.currentTimeMillis());
 
             note.setValue(updatedNote);
         }
@@ -188,4 +237,16 @@ public class NoteViewModel extends ViewModel {
         this.note.setValue(note);
     }
 
+    //what saveNote() hands to the write thread
+    private static class SaveRequest {
+
+        final Note note;
+        final boolean isNewNote;
+
+        SaveRequest(Note note, boolean isNewNote) {
+            this.note = note;
+            this.isNewNote = isNewNote;
+        }
+    }
+
 }
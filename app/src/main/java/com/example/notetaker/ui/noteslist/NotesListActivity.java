@@ -4,9 +4,13 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.widget.SearchView;
+import androidx.appcompat.widget.Toolbar;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
@@ -16,7 +20,8 @@ import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
 import com.example.notetaker.ui.Resource;
 import com.example.notetaker.ui.note.NoteActivity;
 import com.example.notetaker.R;
@@ -25,6 +30,7 @@ import com.example.notetaker.viewmodels.ViewModelProviderFactory;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -33,7 +39,9 @@ import dagger.android.support.DaggerAppCompatActivity;
 
 public class NotesListActivity extends DaggerAppCompatActivity implements
         NotesRecyclerAdapter.OnNoteListener,
-        View.OnClickListener
+        NotesRecyclerAdapter.OnPageRequestListener,
+        View.OnClickListener,
+        SearchView.OnQueryTextListener
 {
 
     private static final String TAG = "NotesListActivity";
@@ -48,6 +56,7 @@ public class NotesListActivity extends DaggerAppCompatActivity implements
     // vars
     private NotesListViewModel viewModel;
     private NotesRecyclerAdapter adapter;
+    private boolean reportedFullyDrawn;
 
     @Inject
     ViewModelProviderFactory providerFactory;
@@ -60,51 +69,114 @@ public class NotesListActivity extends DaggerAppCompatActivity implements
         recyclerView = findViewById(R.id.recyclerview);
         fab = findViewById(R.id.fab);
         parent = findViewById(R.id.parent);
+        setSupportActionBar((Toolbar) findViewById(R.id.toolbar));
 
         fab.setOnClickListener(this);
 
         viewModel = ViewModelProviders.of(this, providerFactory).get(NotesListViewModel.class);
 
         initRecyclerView();
+        subscribeObservers();
+        viewModel.loadNotes();
     }
 
     private void subscribeObservers(){
 
         Log.d(TAG, "subscribeObservers: called.");
 
-        viewModel.observeNotes().observe(this, new Observer<List<Note>>() {
+        viewModel.observeNotes().observe(this, new Observer<List<NoteSummary>>() {
             @Override
-            public void onChanged(List<Note> notes) {
-                if(notes != null){
+            public void onChanged(List<NoteSummary> notes) {
+                if(notes != null && !viewModel.isSearching()){
                     adapter.setNotes(notes);
                 }
+                //the first notes are what startup is measured up to, the system logs the time as "Fully drawn"
+                if(notes != null && !reportedFullyDrawn){
+                    reportedFullyDrawn = true;
+                    reportFullyDrawn();
+                }
+            }
+        });
+
+        viewModel.observeSearchResults().observe(this, new Observer<List<NoteSearchResult>>() {
+            @Override
+            public void onChanged(List<NoteSearchResult> results) {
+                if(results == null){
+                    return;
+                }
+                if(viewModel.isSearching()){
+                    adapter.setNotes(new ArrayList<NoteSummary>(results));
+                }
+                else if(viewModel.observeNotes().getValue() != null){
+                    //the search was cleared, go back to the pages that were loaded before it
+                    adapter.setNotes(viewModel.observeNotes().getValue());
+                }
             }
         });
+    }
 
-        viewModel.getNotes();
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.notes_list_menu, menu);
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_notes));
+        searchView.setOnQueryTextListener(this);
+        return true;
+    }
+
+    @Override
+    public boolean onQueryTextChange(String newText) {
+        viewModel.setQuery(newText);
+        return true;
+    }
+
+    @Override
+    public boolean onQueryTextSubmit(String query) {
+        viewModel.setQuery(query);
+        return true;
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        subscribeObservers();
+        //the list keeps itself up to date, only search results have to be read again
+        viewModel.refreshSearch();
     }
 
     private void initRecyclerView(){
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        NotesRecyclerConfig.DEFAULT.apply(recyclerView, new LinearLayoutManager(this));
         recyclerView.addItemDecoration(new VerticalSpacingItemDecorator(10));
-        adapter = new NotesRecyclerAdapter(this);
+        adapter = new NotesRecyclerAdapter(this, this);
         new ItemTouchHelper(itemTouchHelperCallback).attachToRecyclerView(recyclerView);
         recyclerView.setAdapter(adapter);
     }
 
     @Override
-    public void onNoteClick(Note note) {
+    public void onNoteClick(NoteSummary noteSummary) {
+        //only the id goes through the intent, NoteActivity reads the note itself
         Intent intent = new Intent(this, NoteActivity.class);
-        intent.putExtra(getString(R.string.intent_note), note);
+        intent.putExtra(getString(R.string.intent_note_id), noteSummary.getId());
         startActivity(intent);
     }
 
+    @Override
+    public void onLoadNextPage() {
+        //search results aren't paged
+        if(viewModel.isSearching()){
+            return;
+        }
+        viewModel.loadNextPage();
+    }
+
+    @Override
+    public void onLoadPreviousPage() {
+        if(viewModel.isSearching()){
+            return;
+        }
+        viewModel.loadPreviousPage();
+    }
+
     @Override
     public void onClick(View v) {
         switch (v.getId()){
@@ -132,8 +204,13 @@ public class NotesListActivity extends DaggerAppCompatActivity implements
 
                 @Override
                 public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int i) {
-                    Note note = adapter.getNote(viewHolder.getAdapterPosition());
-                    adapter.removeNote(note);
+                    int position = viewHolder.getAdapterPosition();
+                    //the row was removed by a diff that hasn't been laid out yet, the new list rebinds it anyway
+                    if(position == RecyclerView.NO_POSITION){
+                        return;
+                    }
+                    NoteSummary note = adapter.getNote(position);
+                    adapter.removeNote(position);
 
                     try {
                         final LiveData<Resource<Integer>> deleteAction = viewModel.deleteNote(note);
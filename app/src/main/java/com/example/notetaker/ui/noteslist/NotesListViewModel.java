@@ -1,51 +1,387 @@
 package com.example.notetaker.ui.noteslist;
 
+import android.util.Log;
+
+import androidx.collection.LruCache;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.LiveDataReactiveStreams;
 import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.models.NoteSummaryPage;
+import com.example.notetaker.repository.ChangeLogTrimmedException;
 import com.example.notetaker.repository.NoteRepository;
 import com.example.notetaker.ui.Resource;
 
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.BehaviorProcessor;
+import io.reactivex.processors.PublishProcessor;
+
 public class NotesListViewModel extends ViewModel {
 
     private static final String TAG = "NotesListViewModel";
 
+    public static final int PAGE_SIZE = 50;
+    public static final int MAX_PAGES = 5;
+
+    //a query only goes to the db once nothing new has been typed for this long
+    public static final long SEARCH_DEBOUNCE_MS = 300;
+    //how many recent queries keep their results, so going back to one of them doesn't search again
+    public static final int SEARCH_CACHE_SIZE = 20;
+
     // inject
     private final NoteRepository noteRepository;
 
-    private MediatorLiveData<List<Note>> notes = new MediatorLiveData<>();
+    private MediatorLiveData<List<NoteSummary>> notes = new MediatorLiveData<>();
+    private final NotesPageWindow window = new NotesPageWindow(PAGE_SIZE, MAX_PAGES);
+    //queued instead of deltas when the change feed can't bring the rows up to date anymore
+    private static final Object CHANGES_TRIMMED = new Object();
+    //rows and deltas are queued in the order they arrive from the db threads, and applied to the window on the main thread
+    //windowEventsPosted only wakes the main thread up, postValue can drop values but the queue can't
+    private final Queue<Object> windowEvents = new ConcurrentLinkedQueue<>();
+    private MutableLiveData<Boolean> windowEventsPosted = new MutableLiveData<>();
+    private final BehaviorProcessor<NotesPageWindow.Range> windowRanges = BehaviorProcessor.create();
+    private final Disposable windowSubscription;
+    private Disposable changesSubscription;
+    //true from when the window's range changes until the rows for the new range arrive
+    private boolean loadingPage;
+    //deltas that arrived while loadingPage, the rows may have been read before them so they're applied again on top
+    private final List<NoteDelta> deltasWhileLoading = new ArrayList<>();
+    private LiveData<List<NoteSummary>> pendingPreviousPage;
+
+    // search
+    private MutableLiveData<List<NoteSearchResult>> searchResults = new MutableLiveData<>();
+    private final PublishProcessor<String> queries = PublishProcessor.create();
+    private final LruCache<String, List<NoteSearchResult>> searchCache = new LruCache<>(SEARCH_CACHE_SIZE);
+    //bumped every time the cache is thrown away, results read before that are stale and aren't put in it
+    //guarded by searchCache, so a put can't land between the check and an eviction
+    private int searchCacheGeneration;
+    private volatile String currentQuery = "";
+    private final Disposable searchSubscription;
 
     @Inject
     public NotesListViewModel(NoteRepository noteRepository) {
         this.noteRepository = noteRepository;
+        searchSubscription = subscribeSearchPipeline();
+        windowSubscription = subscribeWindow();
+        notes.addSource(windowEventsPosted, new Observer<Boolean>() {
+            @Override
+            public void onChanged(Boolean posted) {
+                applyWindowEvents();
+            }
+        });
+    }
+
+    //the rows of a range, with the seq of the latest change they were read after
+    private static class WindowRows {
+
+        final NotesPageWindow.Range range;
+        final NoteSummaryPage page;
+
+        WindowRows(NotesPageWindow.Range range, NoteSummaryPage page) {
+            this.range = range;
+            this.page = page;
+        }
+    }
+
+    //the window's rows are read once for every range, switchMap drops the read for a range that has already been left
+    //the same range only comes through again when its rows have to be read again, see reloadWindow
+    private Disposable subscribeWindow(){
+        return windowRanges
+                .switchMap(new Function<NotesPageWindow.Range, Publisher<WindowRows>>() {
+                    @Override
+                    public Publisher<WindowRows> apply(final NotesPageWindow.Range range) throws Exception {
+                        return noteRepository.getNoteSummaryPage(range.afterId, range.limit)
+                                .map(new Function<NoteSummaryPage, WindowRows>() {
+                                    @Override
+                                    public WindowRows apply(NoteSummaryPage page) throws Exception {
+                                        return new WindowRows(range, page);
+                                    }
+                                });
+                    }
+                })
+                .subscribe(new Consumer<WindowRows>() {
+                    @Override
+                    public void accept(WindowRows rows) throws Exception {
+                        postWindowEvent(rows);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        Log.e(TAG, "window: " + throwable.getMessage());
+                    }
+                });
+    }
+
+    //the change feed is observed for as long as the view model lives, not just while the screen is started,
+    //so going back to the list doesn't read it again, it already has every change that was made
+    private Disposable subscribeChanges(long afterSeq){
+        return noteRepository.observeChangesAfter(afterSeq)
+                .subscribe(new Consumer<List<NoteDelta>>() {
+                    @Override
+                    public void accept(List<NoteDelta> deltas) throws Exception {
+                        postWindowEvent(deltas);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        if(throwable instanceof ChangeLogTrimmedException){
+                            //the rows were read before changes that are gone now, they're read again instead
+                            postWindowEvent(CHANGES_TRIMMED);
+                            return;
+                        }
+                        Log.e(TAG, "changes: " + throwable.getMessage());
+                    }
+                });
+    }
+
+    private void postWindowEvent(Object event){
+        windowEvents.add(event);
+        windowEventsPosted.postValue(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyWindowEvents(){
+        boolean changed = false;
+        Object event;
+        while((event = windowEvents.poll()) != null){
+            if(event == CHANGES_TRIMMED){
+                reloadWindow();
+            }
+            else if(event instanceof WindowRows){
+                changed |= applyRows((WindowRows) event);
+            }
+            else{
+                changed |= applyDeltas((List<NoteDelta>) event);
+            }
+        }
+        if(changed){
+            notes.setValue(window.snapshot());
+        }
+    }
+
+    private boolean applyRows(WindowRows rows){
+        //rows that were already on their way when the range moved on
+        if(!rows.range.equals(windowRanges.getValue())){
+            return false;
+        }
+        loadingPage = false;
+        window.setNotes(rows.page.getNotes());
+        for(NoteDelta delta : deltasWhileLoading){
+            if(delta.getSeq() > rows.page.getSeq()){
+                window.apply(delta);
+            }
+        }
+        deltasWhileLoading.clear();
+        //the feed starts with the first rows, nothing before their seq is needed
+        if(changesSubscription == null){
+            changesSubscription = subscribeChanges(rows.page.getSeq());
+        }
+        return true;
+    }
+
+    private boolean applyDeltas(List<NoteDelta> deltas){
+        //any of the cached search results could have changed
+        invalidateSearchCache();
+        if(loadingPage){
+            deltasWhileLoading.addAll(deltas);
+        }
+        boolean changed = false;
+        for(NoteDelta delta : deltas){
+            changed |= window.apply(delta);
+        }
+        return changed;
+    }
+
+    private void loadRange(){
+        NotesPageWindow.Range range = window.getRange();
+        if(range.equals(windowRanges.getValue())){
+            return;
+        }
+        loadingPage = true;
+        deltasWhileLoading.clear();
+        windowRanges.onNext(range);
+    }
+
+    //reads the window's rows again and starts the change feed over from their seq
+    private void reloadWindow(){
+        if(changesSubscription != null){
+            changesSubscription.dispose();
+            changesSubscription = null;
+        }
+        //whatever changes were missed could be in the cached results too
+        invalidateSearchCache();
+        loadingPage = true;
+        deltasWhileLoading.clear();
+        windowRanges.onNext(window.getRange());
+    }
+
+    //a query is only searched once nothing newer has been typed for SEARCH_DEBOUNCE_MS
+    //an empty query or one that's still in the cache doesn't have to wait, its results are already known
+    //switchMap drops the search that's running when a newer query comes through,
+    //so the results of an old query can never replace the results of a newer one
+    private Disposable subscribeSearchPipeline(){
+        return queries
+                .debounce(new Function<String, Publisher<Long>>() {
+                    @Override
+                    public Publisher<Long> apply(String query) throws Exception {
+                        if(query.isEmpty() || searchCache.get(query) != null){
+                            return Flowable.empty();
+                        }
+                        return Flowable.timer(SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .switchMap(new Function<String, Publisher<List<NoteSearchResult>>>() {
+                    @Override
+                    public Publisher<List<NoteSearchResult>> apply(String query) throws Exception {
+                        return search(query);
+                    }
+                })
+                .subscribe(new Consumer<List<NoteSearchResult>>() {
+                    @Override
+                    public void accept(List<NoteSearchResult> results) throws Exception {
+                        searchResults.postValue(results);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        Log.e(TAG, "search pipeline: " + throwable.getMessage());
+                    }
+                });
+    }
+
+    private Flowable<List<NoteSearchResult>> search(final String query){
+        if(query.isEmpty()){
+            return Flowable.<List<NoteSearchResult>>just(new ArrayList<NoteSearchResult>());
+        }
+        List<NoteSearchResult> cachedResults = searchCache.get(query);
+        if(cachedResults != null){
+            return Flowable.just(cachedResults);
+        }
+        //the results arrive on a db thread, a change applied on the main thread while they were being read
+        //has already bumped the generation, so they're still shown but not cached
+        final int generation;
+        synchronized (searchCache){
+            generation = searchCacheGeneration;
+        }
+        return noteRepository.search(query)
+                .doOnNext(new Consumer<List<NoteSearchResult>>() {
+                    @Override
+                    public void accept(List<NoteSearchResult> results) throws Exception {
+                        synchronized (searchCache){
+                            if(generation == searchCacheGeneration){
+                                searchCache.put(query, results);
+                            }
+                        }
+                    }
+                });
+    }
+
+    private void invalidateSearchCache(){
+        synchronized (searchCache){
+            searchCacheGeneration++;
+            searchCache.evictAll();
+        }
+    }
+
+    //called for every change to the search box, an empty query ends the search
+    public void setQuery(String query){
+        currentQuery = query == null ? "" : query.trim();
+        queries.onNext(currentQuery);
+    }
+
+    public boolean isSearching(){
+        return !currentQuery.isEmpty();
+    }
+
+    public LiveData<List<NoteSearchResult>> observeSearchResults(){
+        return searchResults;
     }
 
-    public LiveData<Resource<Integer>> deleteNote(final Note note) throws Exception{
-        return noteRepository.deleteNote(note);
+    public LiveData<Resource<Integer>> deleteNote(final NoteSummary note) throws Exception{
+        //the deleted note could be in any of the cached results
+        invalidateSearchCache();
+        //a delete only matches on the primary key, so the content doesn't have to be loaded for it
+        //the window drops the note by itself once the delete comes through the change feed
+        return LiveDataReactiveStreams.fromPublisher(
+                noteRepository.deleteNote(new Note(note.getId(), note.getTitle(), null, note.getTimestamp())));
     }
 
-    public LiveData<List<Note>> observeNotes(){
+    public LiveData<List<NoteSummary>> observeNotes(){
         return notes;
     }
 
-    public void getNotes(){
-        final LiveData<List<Note>> source = noteRepository.getNotes();
-        notes.addSource(source, new Observer<List<Note>>() {
+    //reads the first page, does nothing once the window has been read, the change feed keeps it up to date from then on
+    public void loadNotes(){
+        if(!windowRanges.hasValue()){
+            loadRange();
+        }
+    }
+
+    //notes may have changed since the cached searches ran, so they're thrown away and the current query runs again
+    public void refreshSearch(){
+        invalidateSearchCache();
+        if(isSearching()){
+            queries.onNext(currentQuery);
+        }
+    }
+
+    public void loadNextPage(){
+        if(loadingPage || pendingPreviousPage != null || window.isEmpty() || !window.hasMoreAfter()){
+            return;
+        }
+        window.extendForward();
+        loadRange();
+    }
+
+    //the window's range can only grow forwards, so the page before it is read once to find where the window should start
+    public void loadPreviousPage(){
+        if(loadingPage || pendingPreviousPage != null || window.isEmpty() || !window.hasMoreBefore()){
+            return;
+        }
+        final LiveData<List<NoteSummary>> source = LiveDataReactiveStreams.fromPublisher(
+                noteRepository.getNoteSummariesBefore(window.getFirstId(), PAGE_SIZE));
+        pendingPreviousPage = source;
+        notes.addSource(source, new Observer<List<NoteSummary>>() {
             @Override
-            public void onChanged(List<Note> notesList) {
-                if(notesList != null){
-                    notes.setValue(notesList);
-                }
+            public void onChanged(List<NoteSummary> page) {
                 notes.removeSource(source);
+                pendingPreviousPage = null;
+                if(page == null){
+                    return;
+                }
+                window.extendBackward(page);
+                loadRange();
             }
         });
     }
-}
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        searchSubscription.dispose();
+        windowSubscription.dispose();
+        if(changesSubscription != null){
+            changesSubscription.dispose();
+        }
+    }
+}
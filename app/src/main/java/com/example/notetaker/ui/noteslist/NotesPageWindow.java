@@ -0,0 +1,262 @@
+package com.example.notetaker.ui.noteslist;
+
+import androidx.annotation.Nullable;
+
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//holds the pages of notes the list is currently showing
+//only maxPages pages are kept, when a new page is added at one end a page is dropped from the other end,
+//so the memory used by the list stays the same no matter how many notes are in the table
+//the window is the notes with ids greater than afterId, at most limit of them
+//paging moves afterId and limit and the rows are read again, after that changes to the table are applied as deltas
+//the notes are indexed by id, so a delta finds its note without searching the list or boxing the id,
+//a deleted note leaves a gap that's closed the next time the list as a whole is needed
+public class NotesPageWindow {
+
+    private final int pageSize;
+    private final int maxPages;
+
+    //in ascending id order, a deleted note is a null until compact()
+    private final ArrayList<NoteSummary> notes = new ArrayList<>();
+    //id to index in notes, for every note that hasn't been deleted
+    private final IntIntMap positions;
+    private int deletedCount;
+
+    private int afterId = 0;
+    private int limit;
+    private boolean hasMoreAfter = true;
+
+    public NotesPageWindow(int pageSize, int maxPages) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.limit = pageSize;
+        this.positions = new IntIntMap(pageSize * maxPages);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Range getRange(){
+        return new Range(afterId, limit);
+    }
+
+    public boolean isEmpty(){
+        return getNoteCount() == 0;
+    }
+
+    //there may be notes before afterId, the window starts at the first note when afterId is 0
+    public boolean hasMoreBefore(){
+        return afterId > 0;
+    }
+
+    public boolean hasMoreAfter(){
+        return hasMoreAfter;
+    }
+
+    //id of the first note in the window, or 0 if nothing has been loaded yet
+    public int getFirstId(){
+        compact();
+        if(notes.isEmpty()){
+            return 0;
+        }
+        return notes.get(0).getId();
+    }
+
+    //id of the last note in the window, or 0 if nothing has been loaded yet
+    public int getLastId(){
+        compact();
+        if(notes.isEmpty()){
+            return 0;
+        }
+        return notes.get(notes.size() - 1).getId();
+    }
+
+    public int getNoteCount(){
+        return notes.size() - deletedCount;
+    }
+
+    //the note with that id, or null if it isn't in the window
+    @Nullable
+    public NoteSummary getNote(int id){
+        int index = positions.get(id, -1);
+        return index < 0 ? null : notes.get(index);
+    }
+
+    //replaces everything in the window with the rows of the query
+    public void setNotes(List<NoteSummary> notes){
+        this.notes.clear();
+        this.notes.addAll(notes);
+        deletedCount = 0;
+        reindex(0);
+        hasMoreAfter = notes.size() >= limit;
+    }
+
+    //applies one change to the notes table, returns false if the window didn't change
+    //applying the same delta again changes nothing, so a delta can safely be applied on top of rows that already have it
+    //a new note is only taken in if it falls inside the window, one past the end belongs to the next page
+    //updates and deletes are O(1), a new note is too when it's the newest, which the table's ids make it almost every time
+    public boolean apply(NoteDelta delta){
+        int index = positions.get(delta.getNoteId(), -1);
+        NoteSummary note = delta.getNote();
+        if(note == null){
+            if(index < 0){
+                return false;
+            }
+            notes.set(index, null);
+            positions.remove(delta.getNoteId());
+            deletedCount++;
+            return true;
+        }
+        if(index >= 0){
+            if(notes.get(index).equals(note)){
+                return false;
+            }
+            notes.set(index, note);
+            return true;
+        }
+        int lastId = getLastId();
+        if(note.getId() <= afterId || (hasMoreAfter && note.getId() > lastId)){
+            return false;
+        }
+        if(note.getId() > lastId){
+            positions.put(note.getId(), notes.size());
+            notes.add(note);
+        }
+        else{
+            int insertAt = -(indexOf(notes, note.getId()) + 1);
+            notes.add(insertAt, note);
+            reindex(insertAt);
+        }
+        return true;
+    }
+
+    //closes the gaps deleted notes left, and moves the index of every note after the first gap
+    private void compact(){
+        if(deletedCount == 0){
+            return;
+        }
+        int firstGap = -1;
+        int kept = 0;
+        for(int i = 0; i < notes.size(); i++){
+            NoteSummary note = notes.get(i);
+            if(note == null){
+                if(firstGap < 0){
+                    firstGap = i;
+                }
+                continue;
+            }
+            notes.set(kept++, note);
+        }
+        notes.subList(kept, notes.size()).clear();
+        deletedCount = 0;
+        reindex(firstGap);
+    }
+
+    //the notes from index on have moved, their positions are put again
+    private void reindex(int index){
+        if(index == 0){
+            positions.clear();
+        }
+        for(int i = index; i < notes.size(); i++){
+            positions.put(notes.get(i).getId(), i);
+        }
+    }
+
+    //binary search on the ids, like Collections.binarySearch it returns -(insertion point) - 1 when the id isn't there
+    //only called on a compacted list
+    private static int indexOf(List<NoteSummary> notes, int id){
+        int low = 0;
+        int high = notes.size() - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            int midId = notes.get(mid).getId();
+            if(midId < id){
+                low = mid + 1;
+            }
+            else if(midId > id){
+                high = mid - 1;
+            }
+            else{
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    //grows the query by a page at the end, once the window is full the first page is dropped instead
+    public void extendForward(){
+        limit += pageSize;
+        compact();
+        if(limit > pageSize * maxPages && !notes.isEmpty()){
+            //the id the first page ends on
+            afterId = notes.get(Math.min(pageSize, notes.size()) - 1).getId();
+            limit -= pageSize;
+        }
+    }
+
+    //grows the query back over the page before the window, once the window is full the last page is dropped
+    //previousPage is in ascending id order, a short page means it reached the start of the table
+    public void extendBackward(List<NoteSummary> previousPage){
+        if(previousPage.size() < pageSize){
+            afterId = 0;
+        }
+        else{
+            afterId = previousPage.get(0).getId() - 1;
+        }
+        limit = Math.min(limit + previousPage.size(), pageSize * maxPages);
+    }
+
+    //a new list every time, so observers can compare it against the one they already have
+    public List<NoteSummary> snapshot(){
+        compact();
+        return new ArrayList<>(notes);
+    }
+
+    //the arguments of the query the window was read with
+    public static class Range {
+
+        public final int afterId;
+        public final int limit;
+
+        public Range(int afterId, int limit) {
+            this.afterId = afterId;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Range)){
+                return false;
+            }
+            Range range = (Range) obj;
+            return range.afterId == afterId && range.limit == limit;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * afterId + limit;
+        }
+
+        @Override
+        public String toString() {
+            return "Range{" +
+                    "afterId=" + afterId +
+                    ", limit=" + limit +
+                    '}';
+        }
+    }
+}
@@ -7,11 +7,14 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.notetaker.R;
-import com.example.notetaker.models.Note;
-import com.example.notetaker.util.DateUtil;
+import com.example.notetaker.models.NoteSummary;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,11 +22,43 @@ import java.util.List;
 public class NotesRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>  {
     private static final String TAG = "NotesRecyclerAdapter";
 
-    private List<Note> notes = new ArrayList<>();
+    //how close to either end of the loaded notes a bind has to be before the next page is requested
+    public static final int PREFETCH_DISTANCE = 10;
+
+    //every row is a note, the pool is sized for this view type
+    public static final int VIEW_TYPE_NOTE = 0;
+
+    //rows are the same note if they have the same primary key, and only rebind if something shown in them changed
+    static final DiffUtil.ItemCallback<NoteSummary> DIFF_CALLBACK = new DiffUtil.ItemCallback<NoteSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull NoteSummary oldNote, @NonNull NoteSummary newNote) {
+            return oldNote.getId() == newNote.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull NoteSummary oldNote, @NonNull NoteSummary newNote) {
+            return oldNote.equals(newNote);
+        }
+    };
+
+    //the diff between the old and new list is worked out on a background thread,
+    //only the rows that actually changed are dispatched back on the main thread
+    private final AsyncListDiffer<NoteSummary> differ;
     private OnNoteListener onNoteListener;
+    private OnPageRequestListener onPageRequestListener;
 
-    public NotesRecyclerAdapter(OnNoteListener onNoteListener) {
+    public NotesRecyclerAdapter(OnNoteListener onNoteListener, OnPageRequestListener onPageRequestListener) {
+        this(onNoteListener, onPageRequestListener, new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build());
+    }
+
+    //tests pass a config that diffs on their own thread, so there's nothing to wait for but the main looper
+    NotesRecyclerAdapter(OnNoteListener onNoteListener, OnPageRequestListener onPageRequestListener,
+                         AsyncDifferConfig<NoteSummary> differConfig) {
+        this.differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this), differConfig);
         this.onNoteListener = onNoteListener;
+        this.onPageRequestListener = onPageRequestListener;
+        //rows keep their id across list updates, so a moved note keeps its view instead of being rebound
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -33,40 +68,60 @@ public class NotesRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.View
         return new ViewHolder(view, onNoteListener);
     }
 
+    //binding only sets text that was worked out when the page was read, nothing is allocated while scrolling
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        try{
-            String month = notes.get(position).getTimestamp().substring(0, 2);
-            month = DateUtil.getMonthFromNumber(month);
-            String year = notes.get(position).getTimestamp().substring(3);
-            String timestamp = month + " " + year;
-            ((ViewHolder)holder).timestamp.setText(timestamp);
-            ((ViewHolder)holder).title.setText(notes.get(position).getTitle());
-        }catch (NullPointerException e){
-            Log.e(TAG, "onBindViewHolder: Null Pointer: " + e.getMessage() );
+        NoteSummary note = getNote(position);
+        ViewHolder viewHolder = (ViewHolder) holder;
+        viewHolder.title.setText(note.getTitle());
+        viewHolder.timestamp.setText(note.getDisplayTimestamp());
+        requestPageIfNeeded(position);
+    }
+
+    private void requestPageIfNeeded(int position){
+        if(position >= getItemCount() - PREFETCH_DISTANCE){
+            onPageRequestListener.onLoadNextPage();
+        }
+        else if(position < PREFETCH_DISTANCE){
+            onPageRequestListener.onLoadPreviousPage();
         }
     }
 
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_NOTE;
+    }
+
+    //the primary key of the note, unique and never reused for another note while the list is showing
+    @Override
+    public long getItemId(int position) {
+        return getNote(position).getId();
+    }
+
     @Override
     public int getItemCount() {
-        return notes.size();
+        return differ.getCurrentList().size();
     }
 
-    public Note getNote(int position){
-        if(notes.size() > 0){
-            return notes.get(position);
+    public NoteSummary getNote(int position){
+        if(getItemCount() > 0){
+            return differ.getCurrentList().get(position);
         }
         return null;
     }
 
-    public void removeNote(Note note){
-        notes.remove(note);
-        notifyDataSetChanged();
+    //the current list can't be changed in place, the differ is given a copy without the note
+    //removed by position, the swiped row already knows it, rather than comparing every note's title on the way
+    public void removeNote(int position){
+        List<NoteSummary> notes = new ArrayList<>(differ.getCurrentList());
+        notes.remove(position);
+        differ.submitList(notes);
     }
 
-    public void setNotes(List<Note> notes){
-        this.notes = notes;
-        notifyDataSetChanged();
+    //a list that is still being diffed when a newer one comes in is dropped,
+    //so only the latest list is ever dispatched
+    public void setNotes(List<NoteSummary> notes){
+        differ.submitList(notes);
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
@@ -91,7 +146,12 @@ public class NotesRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.View
     }
 
     public interface OnNoteListener{
-        void onNoteClick(Note note);
+        void onNoteClick(NoteSummary note);
+    }
+
+    public interface OnPageRequestListener{
+        void onLoadNextPage();
+        void onLoadPreviousPage();
     }
 
 }
@@ -0,0 +1,50 @@
+package com.example.notetaker.ui.noteslist;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+//how the notes RecyclerView recycles and prefetches its rows
+public class NotesRecyclerConfig {
+
+    //a fling can scroll a whole screen of rows out of view between two frames,
+    //the default pool only keeps 5 of them so the rest would be thrown away and inflated again
+    public static final int DEFAULT_POOL_SIZE = 20;
+    //rows that just went off screen are kept bound, scrolling back to them doesn't even rebind
+    public static final int DEFAULT_VIEW_CACHE_SIZE = 4;
+
+    public static final NotesRecyclerConfig DEFAULT =
+            new NotesRecyclerConfig(DEFAULT_POOL_SIZE, DEFAULT_VIEW_CACHE_SIZE, true);
+
+    private final int poolSize;
+    private final int viewCacheSize;
+    private final boolean itemPrefetchEnabled;
+
+    public NotesRecyclerConfig(int poolSize, int viewCacheSize, boolean itemPrefetchEnabled) {
+        this.poolSize = poolSize;
+        this.viewCacheSize = viewCacheSize;
+        this.itemPrefetchEnabled = itemPrefetchEnabled;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getViewCacheSize() {
+        return viewCacheSize;
+    }
+
+    public boolean isItemPrefetchEnabled() {
+        return itemPrefetchEnabled;
+    }
+
+    public void apply(RecyclerView recyclerView, LinearLayoutManager layoutManager){
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setMaxRecycledViews(NotesRecyclerAdapter.VIEW_TYPE_NOTE, poolSize);
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setItemViewCacheSize(viewCacheSize);
+
+        //rows about to scroll into view are created and bound while the ui thread is idle between frames
+        layoutManager.setItemPrefetchEnabled(itemPrefetchEnabled);
+        recyclerView.setLayoutManager(layoutManager);
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.notetaker.util;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.TimeZone;
 
+//every method here can be called from any thread, nothing is shared except immutable tables and the time zone,
+//and nothing is parsed or formatted with SimpleDateFormat, which isn't thread safe and is slow to create
 public class DateUtil {
 
     private static final String TAG = "Utility";
@@ -10,61 +11,78 @@ public class DateUtil {
     public static final String[] monthNumbers = {"01","02","03","04","05","06","07","08","09","10","11","12"};
     public static final String[] months = {"Jan","Feb","Mar","Apr","May","Jun","Jul","Aug","Sep","Oct","Nov","Dec"};
     public static final String GET_MONTH_ERROR = "Error. Invalid month number.";
-    public static final String DATE_FORMAT = "MM-yyyy";
 
-    public static String getCurrentTimeStamp() throws Exception{
-        try {
-            SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT); //MUST USE LOWERCASE 'y'. API 23- can't use uppercase
-            return dateFormat.format(new Date()); // Find todays date
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new Exception("Couldn't format the date into MM-yyyy");
-        }
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    //TimeZone.getDefault() returns a new copy on every call, so the zone is looked up once and kept
+    //TimeZone.getOffset() only reads the zone's rules, so the same instance can be shared between threads
+    private static volatile TimeZone timeZone = TimeZone.getDefault();
+
+    //BaseApplication calls this when the device's time zone changes, tests call it when they need a fixed zone
+    public static void setTimeZone(TimeZone zone){
+        timeZone = zone;
     }
 
+    //"01" to "12" is looked up in the months table, anything else is an error
     public static String getMonthFromNumber(String monthNumber){
-        switch(monthNumber){
-            case "01":{
-                return months[0];
-            }
-            case "02":{
-                return months[1];
-            }
-            case "03":{
-                return months[2];
-            }
-            case "04":{
-                return months[3];
-            }
-            case "05":{
-                return months[4];
-            }
-            case "06":{
-                return months[5];
-            }
-            case "07":{
-                return months[6];
-            }
-            case "08":{
-                return months[7];
-            }
-            case "09":{
-                return months[8];
-            }
-            case "10":{
-                return months[9];
-            }
-            case "11":{
-                return months[10];
-            }
-            case "12":{
-                return months[11];
-            }
+        if(monthNumber == null || monthNumber.length() != 2){
+            return GET_MONTH_ERROR;
+        }
+        int tens = monthNumber.charAt(0) - '0';
+        int units = monthNumber.charAt(1) - '0';
+        if(tens < 0 || tens > 1 || units < 0 || units > 9){
+            return GET_MONTH_ERROR;
+        }
+        int month = tens * 10 + units;
+        if(month < 1 || month > 12){
+            return GET_MONTH_ERROR;
+        }
+        return months[month - 1];
+    }
+
+    //turns a timestamp in milliseconds into the "Mmm yyyy" shown in the notes list, in the device's time zone
+    //returns an empty string for a note that has no timestamp
+    public static String getDisplayTimestamp(long timestamp){
+        if(timestamp <= 0){
+            return "";
+        }
+        return appendDisplayTimestamp(new StringBuilder(8), timestamp).toString();
+    }
+
+    //the same as getDisplayTimestamp(), written into a builder the caller can reuse, so nothing is allocated
+    public static StringBuilder appendDisplayTimestamp(StringBuilder builder, long timestamp){
+        if(timestamp <= 0){
+            return builder;
+        }
+        int yearMonth = getYearMonth(timestamp);
+        return builder.append(months[yearMonth % 12]).append(' ').append(yearMonth / 12);
+    }
+
+    //year * 12 + zero based month of a timestamp in the device's time zone
+    //the date is worked out from the number of days since the epoch with the days to civil date algorithm
+    //from http://howardhinnant.github.io/date_algorithms.html, which needs no Calendar and no tables
+    static int getYearMonth(long timestamp){
+        long localMillis = timestamp + timeZone.getOffset(timestamp);
+        long days = floorDiv(localMillis, MILLIS_PER_DAY);
+
+        days += 719468;
+        long era = floorDiv(days, 146097);
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return year * 12 + (month - 1);
+    }
 
-            default:{
-                return GET_MONTH_ERROR;
-            }
+    //Math.floorDiv() needs api 24, timestamps before 1970 still have to round down
+    private static long floorDiv(long dividend, long divisor){
+        long quotient = dividend / divisor;
+        if((dividend % divisor != 0) && ((dividend < 0) != (divisor < 0))){
+            quotient--;
         }
+        return quotient;
     }
 
 }
@@ -0,0 +1,157 @@
+package com.example.notetaker.util;
+
+import java.util.Arrays;
+
+//int keys to int values in two flat arrays, with no Integer or entry objects behind them
+//open addressing with linear probing: a key goes in the first free slot from where it hashes to,
+//and a removed key pulls the keys after it back, so there are no tombstones and gets stay O(1) however many removes there are
+//SparseArray is a binary search, O(log n), and HashMap boxes every key
+//not thread safe, like the collections it stands in for
+public class IntIntMap {
+
+    //marks a free slot, the key 0 itself is kept outside the arrays
+    private static final int FREE = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntIntMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size(){
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty(){
+        return size() == 0;
+    }
+
+    //missingValue if the key isn't in the map
+    public int get(int key, int missingValue){
+        if(key == FREE){
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        int slot = slotOf(key);
+        return slot < 0 ? missingValue : values[slot];
+    }
+
+    public boolean containsKey(int key){
+        if(key == FREE){
+            return hasZeroKey;
+        }
+        return slotOf(key) >= 0;
+    }
+
+    public void put(int key, int value){
+        if(key == FREE){
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = hash(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        //grown once it's more than half full, short probes matter more than the memory
+        if(size * 2 > keys.length){
+            rehash(keys.length * 2);
+        }
+    }
+
+    //returns false if the key wasn't in the map
+    public boolean remove(int key){
+        if(key == FREE){
+            boolean had = hasZeroKey;
+            hasZeroKey = false;
+            return had;
+        }
+        int slot = slotOf(key);
+        if(slot < 0){
+            return false;
+        }
+        //every key after the removed one, up to the next free slot, is moved back into the gap if it can't be
+        //found from where it hashes to any more, the same as if the removed key had never been put
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while(keys[next] != FREE){
+            int home = hash(keys[next]);
+            if(((next - home) & mask) >= ((next - free) & mask)){
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = FREE;
+        size--;
+        return true;
+    }
+
+    //keeps the arrays, a map that's cleared and refilled to the same size doesn't allocate again
+    public void clear(){
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    private int slotOf(int key){
+        int slot = hash(key);
+        while(keys[slot] != FREE){
+            if(keys[slot] == key){
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    //fibonacci hashing, keys that follow each other like row ids are spread across the whole table
+    private int hash(int key){
+        return (key * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+    }
+
+    private void rehash(int capacity){
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldKeys[i] != FREE){
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity){
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    //the smallest power of two that holds expectedSize at most half full
+    private static int capacityFor(int expectedSize){
+        int capacity = MIN_CAPACITY;
+        while(capacity < expectedSize * 2){
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
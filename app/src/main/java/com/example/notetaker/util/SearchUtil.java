@@ -0,0 +1,74 @@
+package com.example.notetaker.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class SearchUtil {
+
+    private static final String TAG = "SearchUtil";
+
+    //a hit in the title counts for more than a hit in the content
+    //the order matches the columns of notes_fts
+    public static final double[] COLUMN_WEIGHTS = {2.0, 1.0};
+
+    //turns whatever was typed into an FTS4 MATCH expression
+    //every word becomes a prefix query and the words are ANDed, anything that isn't a letter or digit is dropped
+    //so the user can't write an expression that fails to parse
+    //returns an empty string if nothing searchable was typed
+    public static String toMatchQuery(String input){
+        if(input == null){
+            return "";
+        }
+        StringBuilder query = new StringBuilder();
+        int length = input.length();
+        int i = 0;
+        while(i < length){
+            while(i < length && !Character.isLetterOrDigit(input.charAt(i))){
+                i++;
+            }
+            int start = i;
+            while(i < length && Character.isLetterOrDigit(input.charAt(i))){
+                i++;
+            }
+            if(i > start){
+                if(query.length() > 0){
+                    query.append(' ');
+                }
+                query.append(input, start, i).append('*');
+            }
+        }
+        return query.toString();
+    }
+
+    //scores a match from its matchinfo(notes_fts, 'pcx') blob, higher is a better match
+    //the blob is an array of 32 bit unsigned ints in the byte order of the device:
+    //the number of phrases p, the number of columns c, then for every phrase and column
+    //the hits in this row, the hits in all rows and the number of rows with a hit
+    //every phrase and column adds (hits in this row / hits in all rows) times the weight of the column,
+    //the same ranking as the example in the sqlite FTS3/4 docs
+    public static double rank(byte[] matchInfo, double[] columnWeights){
+        if(matchInfo == null || matchInfo.length < 8){
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        if(matchInfo.length < (2 + 3 * phraseCount * columnCount) * 4){
+            return 0;
+        }
+
+        double score = 0;
+        for(int phrase = 0; phrase < phraseCount; phrase++){
+            for(int column = 0; column < columnCount; column++){
+                int offset = (2 + 3 * (phrase * columnCount + column)) * 4;
+                int hitsThisRow = buffer.getInt(offset);
+                int hitsAllRows = buffer.getInt(offset + 4);
+                if(hitsThisRow > 0 && hitsAllRows > 0){
+                    double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                    score += weight * hitsThisRow / hitsAllRows;
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.notetaker.di;
+
+import com.example.notetaker.db.NoteDao;
+import com.example.notetaker.db.NoteDatabase;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+
+//release builds always use the dao from Room directly, there's a debug version of this module that can wrap it
+@Module
+class DaoDecoratorModule {
+
+    @Singleton
+    @Provides
+    static NoteDao provideNoteDao(NoteDatabase noteDatabase) {
+        return noteDatabase.getNoteDao();
+    }
+}
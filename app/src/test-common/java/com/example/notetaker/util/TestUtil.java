@@ -1,6 +1,7 @@
 package com.example.notetaker.util;
 
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteSummary;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -8,10 +9,10 @@ import java.util.List;
 
 public class TestUtil {
 
-    public static final String TIMESTAMP_1 = "05-2019";
+    public static final long TIMESTAMP_1 = 1556668800000L; // 1 May 2019
     public static final Note TEST_NOTE_1 = new Note("Take out the trash", "It's garbage day tomorrow.", TIMESTAMP_1);
 
-    public static final String TIMESTAMP_2 = "06-2019";
+    public static final long TIMESTAMP_2 = 1559347200000L; // 1 June 2019
     public static final Note TEST_NOTE_2 = new Note("Anniversary gift", "Buy an anniversary gift.", TIMESTAMP_2);
 
     public static final List<Note> TEST_NOTES_LIST = Collections.unmodifiableList(
@@ -20,4 +21,11 @@ public class TestUtil {
                 add(new Note(2, "Anniversary gift", "Buy an anniversary gift.", TIMESTAMP_2));
             }}
     );
+
+    public static final List<NoteSummary> TEST_NOTE_SUMMARIES_LIST = Collections.unmodifiableList(
+            new ArrayList<NoteSummary>(){{
+                add(new NoteSummary(1, "Take out the trash", TIMESTAMP_1));
+                add(new NoteSummary(2, "Anniversary gift", TIMESTAMP_2));
+            }}
+    );
 }
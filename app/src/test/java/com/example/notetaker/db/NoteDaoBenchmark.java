@@ -0,0 +1,283 @@
+package com.example.notetaker.db;
+
+import android.app.Application;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.util.LiveDataTestUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+//NoteDao throughput and latency on a plain jvm, against the real sqlite engine Robolectric runs underneath the framework
+//the database is built the same way AppModule builds it, and seeded with 1k, 10k and 100k notes of mixed lengths
+//results are printed to stdout, run with ./gradlew testDebugUnitTest -Pbenchmarks --tests '*NoteDaoBenchmark*' -i
+//Robolectric runs every sqlite call on one thread of its own, so concurrent readers queue there instead of
+//running side by side as they would on a device. The percentiles show how long a read waits behind the others
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 28, application = Application.class)
+public class NoteDaoBenchmark {
+
+    //set by app/build.gradle when gradle is run with -Pbenchmarks
+    private static final String BENCHMARKS_PROPERTY = "notetaker.benchmarks";
+
+    private static final String DATABASE_NAME = "dao-benchmark";
+    private static final int BATCH_SIZE = 1000;
+    private static final int SINGLE_WRITES = 200;
+    private static final int GET_NOTES_RUNS = 5;
+    private static final int READERS = 4;
+    private static final int READS_PER_READER = 500;
+    private static final int PAGE_SIZE = 50;
+
+    private static final String[] WORDS = {
+            "milk", "bread", "garbage", "tomorrow", "meeting", "anniversary", "gift", "call", "dentist", "project",
+            "deadline", "groceries", "remember", "ideas", "book", "holiday", "trip", "birthday", "budget", "recipe"
+    };
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0} notes")
+    public static Collection<Object[]> noteCounts(){
+        return Arrays.asList(new Object[][]{
+                {1000},
+                {10000},
+                {100000}
+        });
+    }
+
+    //Room's LiveData computes on the arch components' io thread, this makes it run straight away instead
+    @Rule
+    public InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    private final int noteCount;
+    private final Random random = new Random(42);
+    private DatabaseExecutors executors;
+    private NoteDatabase noteDatabase;
+    private NoteDao noteDao;
+    private long seedNanos;
+
+    public NoteDaoBenchmark(int noteCount) {
+        this.noteCount = noteCount;
+    }
+
+    @Before
+    public void init(){
+        assumeTrue("run with -Pbenchmarks", Boolean.getBoolean(BENCHMARKS_PROPERTY));
+
+        Application application = ApplicationProvider.getApplicationContext();
+        application.deleteDatabase(DATABASE_NAME);
+        DatabaseConfig config = DatabaseConfig.DEFAULT;
+        executors = new DatabaseExecutors(config.getQueryThreads());
+        //the test thread is Robolectric's main thread, Room would refuse every blocking call made on it
+        noteDatabase = config.applyTo(
+                Room.databaseBuilder(application, NoteDatabase.class, DATABASE_NAME),
+                executors
+        ).addMigrations(NoteMigrations.ALL)
+                .addCallback(NoteChangeLog.CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+        noteDao = noteDatabase.getNoteDao();
+
+        List<Note> notes = createNotes(noteCount);
+        long start = System.nanoTime();
+        for(int i = 0; i < notes.size(); i += BATCH_SIZE){
+            noteDao.insertNotes(notes.subList(i, Math.min(i + BATCH_SIZE, notes.size())));
+        }
+        seedNanos = System.nanoTime() - start;
+    }
+
+    @After
+    public void finish(){
+        if(noteDatabase != null){
+            noteDatabase.close();
+            executors.getQueryExecutor().shutdown();
+            executors.getTransactionExecutor().shutdown();
+        }
+    }
+
+    @Test
+    public void insertUpdateDeleteThroughput() throws Exception {
+        report("batch insert", noteCount, seedNanos);
+
+        List<Note> batch = readNotes(BATCH_SIZE);
+        for(Note note : batch){
+            note.setContent(createContent());
+        }
+        long start = System.nanoTime();
+        int[] updated = noteDao.updateNotes(batch);
+        report("batch update", updated.length, System.nanoTime() - start);
+
+        //every single row write is a transaction of its own, the same as a save from the note screen
+        Note note = batch.get(0);
+        start = System.nanoTime();
+        for(int i = 0; i < SINGLE_WRITES; i++){
+            note.setTitle(createTitle());
+            noteDao.updateNote(note).blockingGet();
+        }
+        report("single update", SINGLE_WRITES, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        int[] deleted = noteDao.deleteNotes(batch);
+        report("batch delete", deleted.length, System.nanoTime() - start);
+
+        for(int row : deleted){
+            assertEquals(1, row);
+        }
+    }
+
+    @Test
+    public void getNotesLatency() throws Exception {
+        LiveDataTestUtil<List<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
+        long[] nanos = new long[GET_NOTES_RUNS];
+        for(int i = 0; i < GET_NOTES_RUNS; i++){
+            long start = System.nanoTime();
+            List<Note> notes = liveDataTestUtil.getValue(noteDao.getNotes());
+            nanos[i] = System.nanoTime() - start;
+            assertEquals(noteCount, notes.size());
+        }
+        Arrays.sort(nanos);
+        System.out.println(String.format(Locale.US, "%d notes, getNotes(): p50 %.1fms, max %.1fms",
+                noteCount, nanos[nanos.length / 2] / 1e6, nanos[nanos.length - 1] / 1e6));
+    }
+
+    //readers page through the list from random points while one writer keeps saving notes
+    @Test
+    public void concurrentReadersLatency() throws Exception {
+        final long[][] nanos = new long[READERS][READS_PER_READER];
+        final CountDownLatch readersDone = new CountDownLatch(READERS);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final List<Note> saved = readNotes(PAGE_SIZE);
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Random writes = new Random(7);
+                while(writing.get()){
+                    Note note = saved.get(writes.nextInt(saved.size()));
+                    note.setContent(createContent(writes));
+                    try {
+                        noteDao.updateNote(note).blockingGet();
+                    } catch (Exception e) {
+                        failed.set(true);
+                    }
+                }
+            }
+        });
+        writer.start();
+
+        for(int r = 0; r < READERS; r++){
+            final int reader = r;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random reads = new Random(reader);
+                    try {
+                        for(int i = 0; i < READS_PER_READER; i++){
+                            int afterId = reads.nextInt(noteCount);
+                            long start = System.nanoTime();
+                            List<NoteSummary> page = noteDao.getNoteSummariesAfter(afterId, PAGE_SIZE).blockingGet();
+                            nanos[reader][i] = System.nanoTime() - start;
+                            if(page.isEmpty()){
+                                failed.set(true);
+                            }
+                        }
+                    } catch (Exception e) {
+                        failed.set(true);
+                    } finally {
+                        readersDone.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        assertTrue("readers didn't finish", readersDone.await(10, TimeUnit.MINUTES));
+        writing.set(false);
+        writer.join();
+        assertTrue("a read or write failed", !failed.get());
+
+        long[] all = new long[READERS * READS_PER_READER];
+        for(int r = 0; r < READERS; r++){
+            System.arraycopy(nanos[r], 0, all, r * READS_PER_READER, READS_PER_READER);
+        }
+        Arrays.sort(all);
+        System.out.println(String.format(Locale.US, "%d notes, %d readers and a writer, page read: p50 %.2fms, p99 %.2fms",
+                noteCount, READERS, percentile(all, 50) / 1e6, percentile(all, 99) / 1e6));
+    }
+
+    private void report(String operation, int rows, long nanos){
+        System.out.println(String.format(Locale.US, "%d notes, %s: %d rows in %.1fms, %.0f rows/s",
+                noteCount, operation, rows, nanos / 1e6, rows / (nanos / 1e9)));
+    }
+
+    private static long percentile(long[] sorted, int percent){
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    //evenly spread through the table, full notes so they can be written back
+    private List<Note> readNotes(int count) throws Exception {
+        List<Note> notes = new ArrayList<>(count);
+        int step = Math.max(1, noteCount / count);
+        for(int id = 1; id <= noteCount && notes.size() < count; id += step){
+            notes.add(noteDao.getNote(id).blockingGet());
+        }
+        return notes;
+    }
+
+    private List<Note> createNotes(int count){
+        List<Note> notes = new ArrayList<>(count);
+        long timestamp = 1546300800000L; // 1 January 2019
+        for(int i = 0; i < count; i++){
+            timestamp += random.nextInt(6 * 60 * 60 * 1000);
+            notes.add(new Note(createTitle(), createContent(), timestamp));
+        }
+        return notes;
+    }
+
+    private String createTitle(){
+        return createText(random, 2 + random.nextInt(6));
+    }
+
+    private String createContent(){
+        return createContent(random);
+    }
+
+    //most notes are a line or two, one in five is a page or more
+    private static String createContent(Random random){
+        int words = random.nextInt(5) == 0 ? 200 + random.nextInt(1200) : 5 + random.nextInt(80);
+        return createText(random, words);
+    }
+
+    private static String createText(Random random, int words){
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < words; i++){
+            if(i > 0){
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.notetaker.metrics;
+
+import com.example.notetaker.ui.Resource.ErrorCause;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryRepositoryMetricsTest {
+
+    /*
+        record latencies and errors for two operations
+        each operation keeps its own histogram
+        errors are counted by cause
+     */
+
+    @Test
+    void record_twoOperations_keptApart() throws Exception {
+        // Arrange
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+
+        // Act
+        metrics.recordLatency(RepositoryMetrics.UPDATE_NOTE, 2000000);
+        metrics.recordLatency(RepositoryMetrics.UPDATE_NOTE, 4000000);
+        metrics.recordError(RepositoryMetrics.UPDATE_NOTE, ErrorCause.NOT_FOUND);
+        metrics.recordError(RepositoryMetrics.UPDATE_NOTE, ErrorCause.DISK_FULL);
+        metrics.recordError(RepositoryMetrics.UPDATE_NOTE, ErrorCause.DISK_FULL);
+        metrics.recordLatency(RepositoryMetrics.GET_NOTE, 1000000);
+
+        // Assert
+        assertEquals(2, metrics.getLatency(RepositoryMetrics.UPDATE_NOTE).getCount());
+        assertEquals(1, metrics.getLatency(RepositoryMetrics.GET_NOTE).getCount());
+        assertNull(metrics.getLatency(RepositoryMetrics.DELETE_NOTE));
+        assertEquals(3, metrics.getErrorCount(RepositoryMetrics.UPDATE_NOTE));
+        assertEquals(2, metrics.getErrorCount(RepositoryMetrics.UPDATE_NOTE, ErrorCause.DISK_FULL));
+        assertEquals(0, metrics.getErrorCount(RepositoryMetrics.GET_NOTE));
+    }
+
+    /*
+        dump after recording
+        every operation and cause is in it
+     */
+
+    @Test
+    void dump_listsOperationsAndCauses() throws Exception {
+        // Arrange
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        metrics.recordLatency(RepositoryMetrics.INSERT_NOTE, 3000000);
+        metrics.recordError(RepositoryMetrics.INSERT_NOTE, ErrorCause.CONSTRAINT);
+        metrics.recordLatency(RepositoryMetrics.LOAD_NOTE_SUMMARY_PAGE, 12000000);
+
+        // Act
+        String dump = metrics.dump();
+
+        // Assert
+        assertTrue(dump.contains(RepositoryMetrics.INSERT_NOTE));
+        assertTrue(dump.contains(RepositoryMetrics.LOAD_NOTE_SUMMARY_PAGE));
+        assertTrue(dump.contains("CONSTRAINT: 1"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.notetaker.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    /*
+        record 1ms to 1000ms, one of each
+        percentiles are within the histogram's precision
+        count and max are exact
+     */
+
+    @Test
+    void record_uniformLatencies_percentilesWithinPrecision() throws Exception {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Act
+        for(int ms = 1; ms <= 1000; ms++){
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        // Assert
+        assertEquals(1000, histogram.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getMaxNanos());
+        assertWithinPrecision(TimeUnit.MILLISECONDS.toNanos(500), histogram.getValueAtPercentile(50));
+        assertWithinPrecision(TimeUnit.MILLISECONDS.toNanos(990), histogram.getValueAtPercentile(99));
+        assertEquals(histogram.getMaxNanos(), histogram.getValueAtPercentile(100));
+    }
+
+    /*
+        every value from a microsecond to the longest trackable
+        falls in a bucket whose top is no more than 1/16th above it
+        the longest falls in the last bucket
+     */
+
+    @Test
+    void bucketIndex_wholeRange_topOfBucketWithinPrecision() throws Exception {
+        for(long micros = 1; micros <= LatencyHistogram.MAX_TRACKABLE_MICROS; micros = micros * 3 / 2 + 1){
+            long top = LatencyHistogram.highestValueInBucket(LatencyHistogram.bucketIndex(micros));
+            assertTrue(top >= micros, "bucket for " + micros + " tops out at " + top);
+            assertTrue(top - micros <= micros / 16, "bucket for " + micros + " tops out at " + top);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_MICROS));
+    }
+
+    /*
+        nothing recorded
+        percentiles and mean are 0
+     */
+
+    @Test
+    void getValueAtPercentile_empty_zero() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+
+    private void assertWithinPrecision(long expectedNanos, long actualNanos){
+        assertTrue(actualNanos >= expectedNanos && actualNanos - expectedNanos <= expectedNanos / 16,
+                "expected about " + expectedNanos + " but was " + actualNanos);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.notetaker.repository;
+
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabaseLockedException;
+import android.database.sqlite.SQLiteDiskIOException;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteFullException;
+
+import com.example.notetaker.ui.Resource.ErrorCause;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//the framework's exceptions are stubs in unit tests, so they're mocked rather than thrown
+public class ErrorClassifierTest {
+
+    /*
+        the framework's exception for each sqlite error
+        classified by its type
+     */
+
+    @Test
+    void classify_sqliteExceptions_byType() throws Exception {
+        assertEquals(ErrorCause.CONSTRAINT, ErrorClassifier.classify(mock(SQLiteConstraintException.class)));
+        assertEquals(ErrorCause.LOCKED, ErrorClassifier.classify(mock(SQLiteDatabaseLockedException.class)));
+        assertEquals(ErrorCause.DISK_FULL, ErrorClassifier.classify(mock(SQLiteFullException.class)));
+        assertEquals(ErrorCause.DISK_IO, ErrorClassifier.classify(mock(SQLiteDiskIOException.class)));
+        assertEquals(ErrorCause.UNKNOWN, ErrorClassifier.classify(new IllegalStateException()));
+    }
+
+    /*
+        a plain SQLiteException
+        classified by the error code in its message
+     */
+
+    @Test
+    void classify_plainSqliteException_byMessage() throws Exception {
+        SQLiteException busy = mock(SQLiteException.class);
+        when(busy.getMessage()).thenReturn("database is locked (code 5 SQLITE_BUSY)");
+        SQLiteException other = mock(SQLiteException.class);
+        when(other.getMessage()).thenReturn("no such table: notes (code 1 SQLITE_ERROR)");
+
+        assertEquals(ErrorCause.LOCKED, ErrorClassifier.classify(busy));
+        assertEquals(ErrorCause.UNKNOWN, ErrorClassifier.classify(other));
+    }
+
+    /*
+        a sqlite exception wrapped in another exception
+        classified by the one it wraps
+        only LOCKED is worth retrying
+     */
+
+    @Test
+    void classify_wrapped_byCause() throws Exception {
+        ErrorCause cause = ErrorClassifier.classify(new RuntimeException(mock(SQLiteDatabaseLockedException.class)));
+
+        assertEquals(ErrorCause.LOCKED, cause);
+        assertTrue(ErrorClassifier.isTransient(cause));
+        assertFalse(ErrorClassifier.isTransient(ErrorCause.CONSTRAINT));
+    }
+}
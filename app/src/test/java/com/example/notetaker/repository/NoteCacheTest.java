@@ -0,0 +1,109 @@
+package com.example.notetaker.repository;
+
+import com.example.notetaker.models.Note;
+import com.example.notetaker.util.TestUtil;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class NoteCacheTest {
+
+    /*
+        put more short notes than the cache holds
+        oldest notes are evicted
+        count never goes over maxNotes
+     */
+
+    @Test
+    void put_shortNotes_boundedByCount() throws Exception {
+        // Arrange
+        NoteCache cache = new NoteCache(3, 64 * 1024);
+
+        // Act
+        for(int id = 1; id <= 5; id++){
+            cache.put(createNote(id, "short"));
+        }
+
+        // Assert
+        assertEquals(3, cache.noteCount());
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(5));
+        assertEquals(2, cache.evictionCount());
+    }
+
+    /*
+        put long notes into a cache that could hold more of them by count
+        oldest notes are evicted
+        size never goes over maxBytes
+     */
+
+    @Test
+    void put_longNotes_boundedByBytes() throws Exception {
+        // Arrange
+        NoteCache cache = new NoteCache(10, 10 * 1024);
+        String content = new String(new char[2 * 1024]);
+
+        // Act
+        for(int id = 1; id <= 4; id++){
+            cache.put(createNote(id, content));
+        }
+
+        // Assert
+        assertEquals(2, cache.noteCount());
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(4));
+    }
+
+    /*
+        put a note bigger than the whole cache
+        note isn't kept
+        the notes already there are kept
+     */
+
+    @Test
+    void put_noteBiggerThanCache_notKept() throws Exception {
+        // Arrange
+        NoteCache cache = new NoteCache(10, 1024);
+        cache.put(createNote(1, "short"));
+
+        // Act
+        cache.put(createNote(2, new String(new char[1024])));
+
+        // Assert
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+    }
+
+    /*
+        get a note and change it
+        cache hands out copies
+        cached note is unchanged
+     */
+
+    @Test
+    void get_changeReturnedNote_cachedNoteUnchanged() throws Exception {
+        // Arrange
+        NoteCache cache = new NoteCache(10, 64 * 1024);
+        Note note = createNote(1, "content");
+        cache.put(note);
+
+        // Act
+        Note cachedNote = cache.get(1);
+        cachedNote.setContent("changed");
+
+        // Assert
+        assertNotSame(note, cachedNote);
+        assertEquals("content", cache.get(1).getContent());
+        assertEquals(2, cache.hitCount());
+        assertEquals(0, cache.missCount());
+    }
+
+    private Note createNote(int id, String content){
+        return new Note(id, "title " + id, content, TestUtil.TIMESTAMP_1);
+    }
+}
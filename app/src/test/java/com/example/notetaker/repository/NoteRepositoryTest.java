@@ -1,35 +1,60 @@
 package com.example.notetaker.repository;
 
-import androidx.lifecycle.MutableLiveData;
-
+import com.example.notetaker.db.DbSchedulers;
 import com.example.notetaker.db.NoteDao;
+import com.example.notetaker.metrics.RepositoryMetrics;
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteChange;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteMatch;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.models.NoteSummaryPage;
 import com.example.notetaker.ui.Resource;
+import com.example.notetaker.ui.Resource.ErrorCause;
 import com.example.notetaker.util.InstantExecutorExtension;
-import com.example.notetaker.util.LiveDataTestUtil;
 import com.example.notetaker.util.TestUtil;
 
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabaseLockedException;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.example.notetaker.repository.NoteRepository.CHANGE_LOG_TRIM_INTERVAL;
 import static com.example.notetaker.repository.NoteRepository.DELETE_FAILURE;
 import static com.example.notetaker.repository.NoteRepository.DELETE_SUCCESS;
 import static com.example.notetaker.repository.NoteRepository.INSERT_FAILURE;
 import static com.example.notetaker.repository.NoteRepository.INSERT_SUCCESS;
 import static com.example.notetaker.repository.NoteRepository.INVALID_NOTE_ID;
+import static com.example.notetaker.repository.NoteRepository.NOTE_FOUND;
+import static com.example.notetaker.repository.NoteRepository.NOTE_NOT_FOUND;
 import static com.example.notetaker.repository.NoteRepository.NOTE_TITLE_NULL;
+import static com.example.notetaker.repository.NoteRepository.SEARCH_CANDIDATE_LIMIT;
 import static com.example.notetaker.repository.NoteRepository.UPDATE_FAILURE;
 import static com.example.notetaker.repository.NoteRepository.UPDATE_SUCCESS;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import io.reactivex.Flowable;
 import io.reactivex.Single;
+import io.reactivex.SingleSource;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
 
 import static com.example.notetaker.util.TestUtil.TEST_NOTE_1;
 import static org.mockito.Mockito.when;
@@ -46,12 +71,16 @@ public class NoteRepositoryTest {
     //therefore, we use Mockito to mock components that utilise components of the Android Framework
     private NoteDao noteDao;
 
+    private RepositoryMetrics metrics;
+
     //this method will be called before each of the @Tests
     //we want a fresh DAO and repository before each test, therefore use this   
     @BeforeEach
     public void init(){
         noteDao = mock(NoteDao.class);
-        noteRepository = new NoteRepository(noteDao);
+        metrics = mock(RepositoryMetrics.class);
+        //everything runs on the test thread, so results can be checked as soon as they're subscribed to
+        noteRepository = new NoteRepository(noteDao, DbSchedulers.trampoline(), metrics);
     }
 
     @Test
@@ -175,11 +204,10 @@ public class NoteRepositoryTest {
         // Arrange
         final int deletedRow = 1;
         Resource<Integer> successResponse = Resource.success(deletedRow, DELETE_SUCCESS);
-        LiveDataTestUtil<Resource<Integer>> liveDataTestUtil = new LiveDataTestUtil<>();
         when(noteDao.deleteNote(any(Note.class))).thenReturn(Single.just(deletedRow));
 
         // Act
-        Resource<Integer> observedResponse = liveDataTestUtil.getValue(noteRepository.deleteNote(NOTE1));
+        Resource<Integer> observedResponse = noteRepository.deleteNote(NOTE1).blockingFirst();
 
         // Assert
         assertEquals(successResponse, observedResponse);
@@ -196,11 +224,10 @@ public class NoteRepositoryTest {
         // Arrange
         final int deletedRow = -1;
         Resource<Integer> errorResponse = Resource.error(null, DELETE_FAILURE);
-        LiveDataTestUtil<Resource<Integer>> liveDataTestUtil = new LiveDataTestUtil<>();
         when(noteDao.deleteNote(any(Note.class))).thenReturn(Single.just(deletedRow));
 
         // Act
-        Resource<Integer> observedResponse = liveDataTestUtil.getValue(noteRepository.deleteNote(NOTE1));
+        Resource<Integer> observedResponse = noteRepository.deleteNote(NOTE1).blockingFirst();
 
         // Assert
         assertEquals(errorResponse, observedResponse);
@@ -208,44 +235,703 @@ public class NoteRepositoryTest {
 
 
     /*
-        retrieve notes
-        return list of notes
+        insert a batch of notes
+        every row inserted
+        return Resource.success with the row of each note
+     */
+
+    @Test
+    void insertNotes_allInserted_returnResourceSuccess() throws Exception {
+        // Arrange
+        List<Note> notes = TestUtil.TEST_NOTES_LIST;
+        final int[] insertedRows = {1, 2};
+        when(noteDao.insertNotes(notes)).thenReturn(insertedRows);
+
+        // Act
+        Resource<int[]> returnedValue = noteRepository.insertNotes(notes).blockingFirst();
+
+        // Assert
+        verify(noteDao).insertNotes(notes);
+        verifyNoMoreInteractions(noteDao);
+        assertEquals(Resource.success(insertedRows, INSERT_SUCCESS), returnedValue);
+    }
+
+    /*
+        insert a batch of notes
+        one row fails
+        return Resource.error still holding the row of each note
      */
 
     @Test
-    void getNotes_returnListWithNotes() throws Exception {
+    void insertNotes_oneRowFailed_returnResourceErrorWithRows() throws Exception {
         // Arrange
         List<Note> notes = TestUtil.TEST_NOTES_LIST;
-        LiveDataTestUtil<List<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
-        MutableLiveData<List<Note>> returnedData = new MutableLiveData<>();
-        returnedData.setValue(notes);
-        when(noteDao.getNotes()).thenReturn(returnedData);
+        final int[] insertedRows = {1, -1};
+        when(noteDao.insertNotes(notes)).thenReturn(insertedRows);
+
+        // Act
+        Resource<int[]> returnedValue = noteRepository.insertNotes(notes).blockingFirst();
+
+        // Assert
+        assertEquals(Resource.error(insertedRows, INSERT_FAILURE), returnedValue);
+    }
+
+    /*
+        delete a batch of notes
+        one note has an invalid id
+        throw exception before touching the dao
+     */
+
+    @Test
+    void deleteNotes_invalidId_throwException() throws Exception {
+        final List<Note> notes = new ArrayList<>(TestUtil.TEST_NOTES_LIST);
+        Note invalidNote = new Note(TestUtil.TEST_NOTE_1);
+        invalidNote.setId(-1);
+        notes.add(invalidNote);
+
+        Exception exception = assertThrows(Exception.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                noteRepository.deleteNotes(notes);
+            }
+        });
+
+        assertEquals(INVALID_NOTE_ID, exception.getMessage());
+        verifyNoMoreInteractions(noteDao);
+    }
+
+    /*
+        retrieve note by id
+        return Resource.success with the note
+     */
+
+    @Test
+    void getNote_returnResourceSuccess() throws Exception {
+        // Arrange
+        when(noteDao.getNote(1)).thenReturn(Single.just(NOTE1));
+
+        // Act
+        Resource<Note> returnedValue = noteRepository.getNote(1).blockingFirst();
+
+        // Assert
+        assertEquals(Resource.success(NOTE1, NOTE_FOUND), returnedValue);
+    }
+
+    /*
+        retrieve note by id twice
+        second read is served from the note cache
+     */
+
+    @Test
+    void getNote_secondRead_servedFromCache() throws Exception {
+        // Arrange
+        Note storedNote = TestUtil.TEST_NOTES_LIST.get(0);
+        when(noteDao.getNote(1)).thenReturn(Single.just(storedNote));
+
+        // Act
+        noteRepository.getNote(1).blockingFirst();
+        Resource<Note> returnedValue = noteRepository.getNote(1).blockingFirst();
+
+        // Assert
+        //the cache hands out a copy, Resource compares data by reference so the note is compared on its own
+        assertEquals(Resource.Status.SUCCESS, returnedValue.status);
+        assertEquals(storedNote, returnedValue.data);
+        verify(noteDao, times(1)).getNote(1);
+        assertEquals(1, noteRepository.getNoteCacheHitCount());
+        assertEquals(1, noteRepository.getNoteCacheMissCount());
+    }
+
+    /*
+        insert a note, then retrieve it by its new id
+        the insert writes through to the cache
+        return the note without reading the table
+     */
+
+    @Test
+    void insertNote_thenGetNote_servedFromCache() throws Exception {
+        // Arrange
+        when(noteDao.insertNote(any(Note.class))).thenReturn(Single.just(3L));
+        Note expected = new Note(NOTE1);
+        expected.setId(3);
+
+        // Act
+        noteRepository.insertNote(NOTE1).blockingFirst();
+        Resource<Note> returnedValue = noteRepository.getNote(3).blockingFirst();
+
+        // Assert
+        assertEquals(Resource.Status.SUCCESS, returnedValue.status);
+        assertEquals(expected, returnedValue.data);
+        verify(noteDao, never()).getNote(anyInt());
+    }
+
+    /*
+        update a note, then change the caller's copy and the note that's read back
+        the cache keeps its own copy on put and hands out copies on get
+        a later read still returns what was saved
+     */
+
+    @Test
+    void updateNote_changeNotesAfterwards_cachedNoteUnchanged() throws Exception {
+        // Arrange
+        when(noteDao.updateNote(any(Note.class))).thenReturn(Single.just(1));
+        Note savedNote = new Note(NOTE1);
+        noteRepository.updateNote(savedNote).blockingFirst();
+
+        // Act
+        savedNote.setContent("changed by the caller");
+        noteRepository.getNote(NOTE1.getId()).blockingFirst().data.setContent("changed by a reader");
+        Resource<Note> returnedValue = noteRepository.getNote(NOTE1.getId()).blockingFirst();
+
+        // Assert
+        assertEquals(NOTE1.getContent(), returnedValue.data.getContent());
+        verify(noteDao, never()).getNote(anyInt());
+    }
+
+    /*
+        retrieve a note, delete it, retrieve it again
+        the delete removes it from the cache
+        second read goes to the table
+     */
+
+    @Test
+    void deleteNote_thenGetNote_readFromTable() throws Exception {
+        // Arrange
+        Note storedNote = TestUtil.TEST_NOTES_LIST.get(0);
+        when(noteDao.getNote(1)).thenReturn(Single.just(storedNote));
+        when(noteDao.deleteNote(any(Note.class))).thenReturn(Single.just(1));
+        noteRepository.getNote(1).blockingFirst();
+
+        // Act
+        noteRepository.deleteNote(storedNote);
+        noteRepository.getNote(1).blockingFirst();
+
+        // Assert
+        verify(noteDao, times(2)).getNote(1);
+        assertEquals(0, noteRepository.getNoteCacheHitCount());
+    }
+
+    /*
+        retrieve note by id
+        no row with that id
+        return Resource.error
+     */
+
+    @Test
+    void getNote_missingRow_returnResourceError() throws Exception {
+        // Arrange
+        when(noteDao.getNote(1)).thenReturn(Single.<Note>error(new Exception()));
 
         // Act
-        List<Note> observedData = liveDataTestUtil.getValue(noteRepository.getNotes());
+        Resource<Note> returnedValue = noteRepository.getNote(1).blockingFirst();
+
+        // Assert
+        assertEquals(Resource.error(null, NOTE_NOT_FOUND), returnedValue);
+    }
+
+    /*
+        retrieve page of notes
+        return list of notes
+     */
+
+    @Test
+    void getNoteSummariesAfter_returnListWithNotes() throws Exception {
+        // Arrange
+        List<NoteSummary> notes = TestUtil.TEST_NOTE_SUMMARIES_LIST;
+        when(noteDao.getNoteSummariesAfter(0, notes.size())).thenReturn(Single.just(notes));
+
+        // Act
+        List<NoteSummary> observedData = noteRepository.getNoteSummariesAfter(0, notes.size()).blockingFirst();
 
         // Assert
         assertEquals(notes, observedData);
     }
 
     /*
-        retrieve notes
+        retrieve page of notes
         return empty list
      */
 
     @Test
-    void getNotes_returnEmptyList() throws Exception {
+    void getNoteSummariesAfter_returnEmptyList() throws Exception {
         // Arrange
-        List<Note> notes = new ArrayList<>();
-        LiveDataTestUtil<List<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
-        MutableLiveData<List<Note>> returnedData = new MutableLiveData<>();
-        returnedData.setValue(notes);
-        when(noteDao.getNotes()).thenReturn(returnedData);
+        List<NoteSummary> notes = new ArrayList<>();
+        when(noteDao.getNoteSummariesAfter(anyInt(), anyInt())).thenReturn(Single.just(notes));
 
         // Act
-        List<Note> observedData = liveDataTestUtil.getValue(noteRepository.getNotes());
+        List<NoteSummary> observedData = noteRepository.getNoteSummariesAfter(2, 10).blockingFirst();
 
         // Assert
         assertEquals(notes, observedData);
     }
+
+    /*
+        observe changes after a seq
+        change log grows, or is invalidated without growing
+        only the new changes are read, once for every time the log grows
+     */
+
+    @Test
+    void observeChangesAfter_readOnlyNewChanges() throws Exception {
+        // Arrange
+        NoteDelta inserted = new NoteDelta(1, 3, NoteChange.TYPE_INSERT, new NoteSummary(3, "inserted", TestUtil.TIMESTAMP_1));
+        NoteDelta updated = new NoteDelta(2, 1, NoteChange.TYPE_UPDATE, TestUtil.TEST_NOTE_SUMMARIES_LIST.get(0));
+        NoteDelta deleted = new NoteDelta(3, 2, NoteChange.TYPE_DELETE, null);
+        when(noteDao.observeLatestChangeSeq()).thenReturn(Flowable.just(0L, 2L, 2L, 3L));
+        when(noteDao.getChangesAfter(0)).thenReturn(Single.just(Arrays.asList(inserted, updated)));
+        when(noteDao.getChangesAfter(2)).thenReturn(Single.just(Collections.singletonList(deleted)));
+
+        // Act
+        List<List<NoteDelta>> observedData = noteRepository.observeChangesAfter(0).toList().blockingGet();
+
+        // Assert
+        assertEquals(Arrays.asList(Arrays.asList(inserted, updated), Collections.singletonList(deleted)), observedData);
+        verify(noteDao).getChangesAfter(0);
+        verify(noteDao).getChangesAfter(2);
+    }
+
+    /*
+        observe changes until the observer has read a trim interval's worth of them
+        the changes before the last one it read are deleted from the log
+        the deltas are still emitted
+     */
+
+    @Test
+    void observeChangesAfter_readPastTrimInterval_trimChangeLog() throws Exception {
+        // Arrange
+        long latestSeq = CHANGE_LOG_TRIM_INTERVAL + 1;
+        NoteDelta deleted = new NoteDelta(latestSeq, 2, NoteChange.TYPE_DELETE, null);
+        when(noteDao.observeLatestChangeSeq()).thenReturn(Flowable.just(latestSeq));
+        when(noteDao.getChangesAfter(0)).thenReturn(Single.just(Collections.singletonList(deleted)));
+        when(noteDao.deleteChangesBefore(latestSeq)).thenReturn(Single.just((int) latestSeq - 1));
+
+        // Act
+        List<List<NoteDelta>> observedData = noteRepository.observeChangesAfter(0).toList().blockingGet();
+
+        // Assert
+        assertEquals(Collections.singletonList(Collections.singletonList(deleted)), observedData);
+        verify(noteDao).deleteChangesBefore(latestSeq);
+    }
+
+    /*
+        observe changes, fewer than a trim interval
+        the change log isn't trimmed
+     */
+
+    @Test
+    void observeChangesAfter_belowTrimInterval_keepChangeLog() throws Exception {
+        // Arrange
+        NoteDelta deleted = new NoteDelta(1, 2, NoteChange.TYPE_DELETE, null);
+        when(noteDao.observeLatestChangeSeq()).thenReturn(Flowable.just(1L));
+        when(noteDao.getChangesAfter(0)).thenReturn(Single.just(Collections.singletonList(deleted)));
+
+        // Act
+        noteRepository.observeChangesAfter(0).toList().blockingGet();
+
+        // Assert
+        verify(noteDao, never()).deleteChangesBefore(anyLong());
+    }
+
+    /*
+        one observer reads past a trim interval and the log is trimmed
+        then observe from a seq before the trim, and from the last change that was kept
+        the first fails with ChangeLogTrimmedException without reading the log, the second is observed as usual
+     */
+
+    @Test
+    void observeChangesAfter_subscribeAfterTrim_errorChangeLogTrimmed() throws Exception {
+        // Arrange
+        long latestSeq = CHANGE_LOG_TRIM_INTERVAL + 1;
+        NoteDelta deleted = new NoteDelta(latestSeq, 2, NoteChange.TYPE_DELETE, null);
+        when(noteDao.observeLatestChangeSeq()).thenReturn(Flowable.just(latestSeq));
+        when(noteDao.getChangesAfter(0)).thenReturn(Single.just(Collections.singletonList(deleted)));
+        when(noteDao.getChangesAfter(latestSeq - 1)).thenReturn(Single.just(Collections.singletonList(deleted)));
+        when(noteDao.deleteChangesBefore(latestSeq)).thenReturn(Single.just((int) latestSeq - 1));
+        noteRepository.observeChangesAfter(0).toList().blockingGet();
+
+        // Act
+        TestSubscriber<List<NoteDelta>> trimmed = noteRepository.observeChangesAfter(0).test();
+        TestSubscriber<List<NoteDelta>> kept = noteRepository.observeChangesAfter(latestSeq - 1).test();
+
+        // Assert
+        trimmed.assertError(ChangeLogTrimmedException.class);
+        trimmed.assertNoValues();
+        verify(noteDao, times(1)).getChangesAfter(0);
+        kept.assertResult(Collections.singletonList(deleted));
+    }
+
+    /*
+        prefetch a page, then ask for the same page twice
+        first request gets the prefetched page
+        second request reads the table again
+     */
+
+    @Test
+    void getNoteSummaryPage_prefetched_servedOnce() throws Exception {
+        // Arrange
+        List<NoteSummary> notes = TestUtil.TEST_NOTE_SUMMARIES_LIST;
+        when(noteDao.getLatestChangeSeq()).thenReturn(Single.just(4L));
+        when(noteDao.getNoteSummariesAfter(0, 10)).thenReturn(Single.just(notes));
+        noteRepository.prefetchNoteSummaryPage(0, 10);
+
+        // Act
+        NoteSummaryPage prefetchedPage = noteRepository.getNoteSummaryPage(0, 10).blockingFirst();
+        verify(noteDao, times(1)).getNoteSummariesAfter(0, 10);
+        noteRepository.getNoteSummaryPage(0, 10).blockingFirst();
+
+        // Assert
+        assertEquals(4L, prefetchedPage.getSeq());
+        assertEquals(notes, prefetchedPage.getNotes());
+        verify(noteDao, times(2)).getNoteSummariesAfter(0, 10);
+    }
+
+    /*
+        prefetch a page, ask for a different page, then for the prefetched one
+        the different page is read from the table
+        the prefetched page was dropped by the first request, so it's read again too
+     */
+
+    @Test
+    void getNoteSummaryPage_otherArgumentsFirst_prefetchDropped() throws Exception {
+        // Arrange
+        List<NoteSummary> notes = TestUtil.TEST_NOTE_SUMMARIES_LIST;
+        when(noteDao.getLatestChangeSeq()).thenReturn(Single.just(4L));
+        when(noteDao.getNoteSummariesAfter(anyInt(), anyInt())).thenReturn(Single.just(notes));
+        noteRepository.prefetchNoteSummaryPage(0, 10);
+
+        // Act
+        noteRepository.getNoteSummaryPage(0, 20).blockingFirst();
+        noteRepository.getNoteSummaryPage(0, 10).blockingFirst();
+
+        // Assert
+        verify(noteDao, times(1)).getNoteSummariesAfter(0, 20);
+        verify(noteDao, times(2)).getNoteSummariesAfter(0, 10);
+    }
+
+    /*
+        prefetch a page, then an observer reads past a trim interval and the log is trimmed past the page's seq
+        ask for the prefetched page
+        the page is read again, with a seq the change feed can still be observed from
+     */
+
+    @Test
+    void getNoteSummaryPage_prefetchedBeforeTrim_readAgain() throws Exception {
+        // Arrange
+        long latestSeq = CHANGE_LOG_TRIM_INTERVAL + 1;
+        List<NoteSummary> notes = TestUtil.TEST_NOTE_SUMMARIES_LIST;
+        when(noteDao.getLatestChangeSeq()).thenReturn(Single.just(0L), Single.just(latestSeq));
+        when(noteDao.getNoteSummariesAfter(0, 10)).thenReturn(Single.just(notes));
+        noteRepository.prefetchNoteSummaryPage(0, 10);
+
+        NoteDelta deleted = new NoteDelta(latestSeq, 2, NoteChange.TYPE_DELETE, null);
+        when(noteDao.observeLatestChangeSeq()).thenReturn(Flowable.just(latestSeq));
+        when(noteDao.getChangesAfter(0)).thenReturn(Single.just(Collections.singletonList(deleted)));
+        when(noteDao.deleteChangesBefore(latestSeq)).thenReturn(Single.just((int) latestSeq - 1));
+        noteRepository.observeChangesAfter(0).toList().blockingGet();
+
+        // Act
+        NoteSummaryPage page = noteRepository.getNoteSummaryPage(0, 10).blockingFirst();
+
+        // Assert
+        assertEquals(latestSeq, page.getSeq());
+        assertEquals(notes, page.getNotes());
+        verify(noteDao, times(2)).getNoteSummariesAfter(0, 10);
+    }
+
+    /*
+        retrieve page of notes before a key
+        dao returns the page in descending order
+        return the page in ascending order
+     */
+
+    @Test
+    void getNoteSummariesBefore_returnAscendingList() throws Exception {
+        // Arrange
+        List<NoteSummary> descending = new ArrayList<>(TestUtil.TEST_NOTE_SUMMARIES_LIST);
+        Collections.reverse(descending);
+        when(noteDao.getNoteSummariesBefore(3, 2)).thenReturn(Single.just(descending));
+
+        // Act
+        List<NoteSummary> observedData = noteRepository.getNoteSummariesBefore(3, 2).blockingFirst();
+
+        // Assert
+        assertEquals(TestUtil.TEST_NOTE_SUMMARIES_LIST, observedData);
+    }
+
+    /*
+        search with nothing searchable typed
+        return empty list without querying the db
+     */
+
+    @Test
+    void search_emptyQuery_returnEmptyList() throws Exception {
+        // Act
+        List<NoteSearchResult> observedData = noteRepository.search("  \"* ").blockingFirst();
+
+        // Assert
+        assertTrue(observedData.isEmpty());
+        verifyNoMoreInteractions(noteDao);
+    }
+
+    /*
+        search
+        return results ordered by rank, title hits first
+     */
+
+    @Test
+    void search_returnResultsOrderedByRank() throws Exception {
+        // Arrange
+        List<NoteMatch> matches = new ArrayList<>();
+        matches.add(new NoteMatch(1, matchInfo(0, 1)));
+        matches.add(new NoteMatch(2, matchInfo(1, 0)));
+        when(noteDao.getNoteMatches("milk*", SEARCH_CANDIDATE_LIMIT)).thenReturn(Single.just(matches));
+
+        NoteSearchResult first = new NoteSearchResult(1, "groceries", TestUtil.TIMESTAMP_1, "...milk...");
+        NoteSearchResult second = new NoteSearchResult(2, "milk", TestUtil.TIMESTAMP_2, "...");
+        when(noteDao.getNoteSearchResults("milk*", Arrays.asList(2, 1)))
+                .thenReturn(Single.just(Arrays.asList(first, second)));
+
+        // Act
+        List<NoteSearchResult> observedData = noteRepository.search("milk").blockingFirst();
+
+        // Assert
+        assertEquals(Arrays.asList(second, first), observedData);
+    }
+
+    /*
+        rank more matches than the limit
+        only the best ones are kept, best first
+        equal scores put the newest note first
+     */
+
+    @Test
+    void rankMatches_moreThanLimit_keepBestInOrder() throws Exception {
+        // Arrange
+        List<NoteMatch> matches = new ArrayList<>();
+        matches.add(new NoteMatch(1, matchInfo(0, 1)));
+        matches.add(new NoteMatch(2, matchInfo(1, 1)));
+        matches.add(new NoteMatch(3, matchInfo(0, 1)));
+        matches.add(new NoteMatch(4, matchInfo(0, 0)));
+        matches.add(new NoteMatch(5, matchInfo(1, 0)));
+
+        // Act
+        List<Integer> rankedIds = NoteRepository.rankMatches(matches, 3);
+
+        // Assert
+        assertEquals(Arrays.asList(2, 5, 3), rankedIds);
+    }
+
+    //a matchinfo 'pcx' blob for one phrase over the title and content columns
+    private byte[] matchInfo(int titleHits, int contentHits){
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 4).order(ByteOrder.nativeOrder());
+        buffer.putInt(1).putInt(2);
+        buffer.putInt(titleHits).putInt(1).putInt(1);
+        buffer.putInt(contentHits).putInt(1).putInt(1);
+        return buffer.array();
+    }
+
+    /*
+        insert note
+        nothing runs until the write scheduler does
+     */
+
+    @Test
+    void insertNote_subscribeOnWriteScheduler() throws Exception {
+        // Arrange
+        TestScheduler writes = new TestScheduler();
+        noteRepository = new NoteRepository(noteDao, new DbSchedulers(Schedulers.trampoline(), writes), metrics);
+        when(noteDao.insertNote(any(Note.class))).thenReturn(Single.just(1L));
+
+        // Act
+        TestSubscriber<Resource<Integer>> subscriber = noteRepository.insertNote(NOTE1).test();
+
+        // Assert
+        subscriber.assertNoValues();
+        verify(noteDao, never()).insertNote(any(Note.class));
+
+        writes.triggerActions();
+        subscriber.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        subscriber.assertValue(Resource.success(1, INSERT_SUCCESS));
+    }
+
+    /*
+        update note
+        the update's latency is recorded
+        no error is recorded
+     */
+
+    @Test
+    void updateNote_success_recordLatency() throws Exception {
+        // Arrange
+        when(noteDao.updateNote(any(Note.class))).thenReturn(Single.just(1));
+
+        // Act
+        noteRepository.updateNote(NOTE1).blockingFirst();
+
+        // Assert
+        verify(metrics).recordLatency(eq(RepositoryMetrics.UPDATE_NOTE), anyLong());
+        verify(metrics, never()).recordError(anyString(), any(ErrorCause.class));
+    }
+
+    /*
+        update note that isn't in the table
+        recorded as an error, no rows changed
+     */
+
+    @Test
+    void updateNote_noRows_recordError() throws Exception {
+        // Arrange
+        when(noteDao.updateNote(any(Note.class))).thenReturn(Single.just(0));
+
+        // Act
+        noteRepository.updateNote(NOTE1).blockingFirst();
+
+        // Assert
+        verify(metrics).recordLatency(eq(RepositoryMetrics.UPDATE_NOTE), anyLong());
+        verify(metrics).recordError(RepositoryMetrics.UPDATE_NOTE, ErrorCause.NOT_FOUND);
+    }
+
+    /*
+        delete note, the dao throws something that isn't a sqlite error
+        the latency and the cause are recorded
+        the caller still gets a failed Resource
+     */
+
+    @Test
+    void deleteNote_daoThrows_recordErrorCause() throws Exception {
+        // Arrange
+        when(noteDao.deleteNote(any(Note.class))).thenReturn(Single.<Integer>error(new IllegalStateException("disk I/O error")));
+
+        // Act
+        Resource<Integer> returnedValue = noteRepository.deleteNote(NOTE1).blockingFirst();
+
+        // Assert
+        assertEquals(Resource.error(null, DELETE_FAILURE, ErrorCause.UNKNOWN), returnedValue);
+        verify(metrics).recordLatency(eq(RepositoryMetrics.DELETE_NOTE), anyLong());
+        verify(metrics).recordError(RepositoryMetrics.DELETE_NOTE, ErrorCause.UNKNOWN);
+    }
+
+    /*
+        load a page of the list
+        the whole load is recorded, as well as each of its queries
+     */
+
+    @Test
+    void getNoteSummaryPage_recordLoadAndQueries() throws Exception {
+        // Arrange
+        when(noteDao.getLatestChangeSeq()).thenReturn(Single.just(3L));
+        when(noteDao.getNoteSummariesAfter(0, 10)).thenReturn(Single.just(Collections.<NoteSummary>emptyList()));
+
+        // Act
+        noteRepository.getNoteSummaryPage(0, 10).blockingFirst();
+
+        // Assert
+        verify(metrics).recordLatency(eq(RepositoryMetrics.GET_LATEST_CHANGE_SEQ), anyLong());
+        verify(metrics).recordLatency(eq(RepositoryMetrics.GET_NOTE_SUMMARIES_AFTER), anyLong());
+        verify(metrics).recordLatency(eq(RepositoryMetrics.LOAD_NOTE_SUMMARY_PAGE), anyLong());
+    }
+
+    /*
+        insert note that breaks a constraint
+        not retried
+        Resource.error with cause CONSTRAINT
+     */
+
+    @Test
+    void insertNote_constraint_errorCauseNotRetried() throws Exception {
+        // Arrange
+        final AtomicInteger attempts = new AtomicInteger();
+        when(noteDao.insertNote(any(Note.class))).thenReturn(failing(attempts, 1, mock(SQLiteConstraintException.class), 1L));
+
+        // Act
+        Resource<Integer> returnedValue = noteRepository.insertNote(NOTE1).blockingFirst();
+
+        // Assert
+        assertEquals(1, attempts.get());
+        assertEquals(Resource.Status.ERROR, returnedValue.status);
+        assertEquals(ErrorCause.CONSTRAINT, returnedValue.cause);
+    }
+
+    /*
+        update note while another connection holds the lock, twice
+        retried after 50 then 100ms on the write scheduler
+        Resource.success, each failed attempt recorded as LOCKED
+     */
+
+    @Test
+    void updateNote_lockedTwice_retriedWithBackoff() throws Exception {
+        // Arrange
+        TestScheduler writes = new TestScheduler();
+        noteRepository = new NoteRepository(noteDao, new DbSchedulers(Schedulers.trampoline(), writes), metrics);
+        final AtomicInteger attempts = new AtomicInteger();
+        when(noteDao.updateNote(any(Note.class))).thenReturn(failing(attempts, 2, mock(SQLiteDatabaseLockedException.class), 1));
+
+        // Act
+        TestSubscriber<Resource<Integer>> subscriber = noteRepository.updateNote(NOTE1).test();
+        writes.triggerActions();
+        writes.advanceTimeBy(NoteRepository.WRITE_RETRY_BASE_DELAY_MS - 1, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertEquals(1, attempts.get());
+        writes.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertEquals(2, attempts.get());
+        writes.advanceTimeBy(2 * NoteRepository.WRITE_RETRY_BASE_DELAY_MS, TimeUnit.MILLISECONDS);
+        assertEquals(3, attempts.get());
+        subscriber.assertValue(Resource.success(1, UPDATE_SUCCESS));
+        verify(metrics, times(2)).recordError(RepositoryMetrics.UPDATE_NOTE, ErrorCause.LOCKED);
+    }
+
+    /*
+        delete note while the lock is never released
+        gives up after WRITE_RETRY_LIMIT retries
+        Resource.error with cause LOCKED
+     */
+
+    @Test
+    void deleteNote_alwaysLocked_givesUpWithLocked() throws Exception {
+        // Arrange
+        TestScheduler writes = new TestScheduler();
+        noteRepository = new NoteRepository(noteDao, new DbSchedulers(Schedulers.trampoline(), writes), metrics);
+        final AtomicInteger attempts = new AtomicInteger();
+        when(noteDao.deleteNote(any(Note.class))).thenReturn(failing(attempts, Integer.MAX_VALUE, mock(SQLiteDatabaseLockedException.class), 1));
+
+        // Act
+        TestSubscriber<Resource<Integer>> subscriber = noteRepository.deleteNote(NOTE1).test();
+        writes.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        // Assert
+        assertEquals(1 + NoteRepository.WRITE_RETRY_LIMIT, attempts.get());
+        subscriber.assertValue(Resource.error((Integer) null, DELETE_FAILURE, ErrorCause.LOCKED));
+    }
+
+    /*
+        delete a batch where one note is already gone
+        Resource.error with cause NOT_FOUND, still holding the rows
+     */
+
+    @Test
+    void deleteNotes_noteMissing_errorCauseNotFound() throws Exception {
+        // Arrange
+        int[] deletedRows = {1, 0};
+        when(noteDao.deleteNotes(anyList())).thenReturn(deletedRows);
+
+        // Act
+        Resource<int[]> returnedValue = noteRepository.deleteNotes(Arrays.asList(NOTE1, new Note(TestUtil.TEST_NOTE_2))).blockingFirst();
+
+        // Assert
+        assertEquals(Resource.error(deletedRows, DELETE_FAILURE, ErrorCause.NOT_FOUND), returnedValue);
+        verify(metrics).recordError(RepositoryMetrics.DELETE_NOTES, ErrorCause.NOT_FOUND);
+    }
+
+    //fails the first failures times it's subscribed to, then succeeds, the way Room's Single runs the write again on retry
+    private <T> Single<T> failing(final AtomicInteger attempts, final int failures, final Throwable error, final T result){
+        return Single.defer(new Callable<SingleSource<T>>() {
+            @Override
+            public SingleSource<T> call() throws Exception {
+                if(attempts.incrementAndGet() <= failures){
+                    return Single.error(error);
+                }
+                return Single.just(result);
+            }
+        });
+    }
 }
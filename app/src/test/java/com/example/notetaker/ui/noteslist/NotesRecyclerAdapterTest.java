@@ -0,0 +1,103 @@
+package com.example.notetaker.ui.noteslist;
+
+import android.app.Application;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.AsyncDifferConfig;
+
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.util.TestUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.robolectric.Shadows.shadowOf;
+
+//the differ is given an executor that diffs on the test thread, the result is still handed to the main looper,
+//Robolectric gives the test a main looper to run that on
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, application = Application.class)
+public class NotesRecyclerAdapterTest {
+
+    private static final NoteSummary NOTE_1 = new NoteSummary(1, "milk", TestUtil.TIMESTAMP_1);
+    private static final NoteSummary NOTE_2 = new NoteSummary(2, "bread", TestUtil.TIMESTAMP_1);
+    private static final NoteSummary NOTE_3 = new NoteSummary(3, "eggs", TestUtil.TIMESTAMP_2);
+
+    // system under test
+    private NotesRecyclerAdapter adapter;
+
+    @Before
+    public void init(){
+        Executor directExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        adapter = new NotesRecyclerAdapter(
+                mock(NotesRecyclerAdapter.OnNoteListener.class),
+                mock(NotesRecyclerAdapter.OnPageRequestListener.class),
+                new AsyncDifferConfig.Builder<>(NotesRecyclerAdapter.DIFF_CALLBACK)
+                        .setBackgroundThreadExecutor(directExecutor)
+                        .build());
+    }
+
+    /*
+        compare two rows for the same note, one with a changed title, and two rows for different notes
+        same id is the same item, whatever else changed
+        only an unchanged note has the same contents
+     */
+
+    @Test
+    public void diffCallback_comparesItemsByIdAndContentsByValue() throws Exception {
+        // Arrange
+        NoteSummary renamed = new NoteSummary(NOTE_1.getId(), "oat milk", NOTE_1.getTimestamp());
+        NoteSummary copy = new NoteSummary(NOTE_1.getId(), NOTE_1.getTitle(), NOTE_1.getTimestamp());
+
+        // Assert
+        assertTrue(NotesRecyclerAdapter.DIFF_CALLBACK.areItemsTheSame(NOTE_1, renamed));
+        assertFalse(NotesRecyclerAdapter.DIFF_CALLBACK.areItemsTheSame(NOTE_1, NOTE_2));
+        assertTrue(NotesRecyclerAdapter.DIFF_CALLBACK.areContentsTheSame(NOTE_1, copy));
+        assertFalse(NotesRecyclerAdapter.DIFF_CALLBACK.areContentsTheSame(NOTE_1, renamed));
+    }
+
+    /*
+        set a list, then a reordered list with one note changed and one removed
+        every row's item id is its note's id, before and after the diff
+        so a note keeps its id whichever position it moves to
+     */
+
+    @Test
+    public void setNotes_reorderedList_itemIdsFollowNotes() throws Exception {
+        // Arrange
+        adapter.setNotes(Arrays.asList(NOTE_1, NOTE_2, NOTE_3));
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(3, adapter.getItemCount());
+        long firstId = adapter.getItemId(0);
+        long lastId = adapter.getItemId(2);
+
+        // Act
+        NoteSummary renamed = new NoteSummary(NOTE_3.getId(), "free range eggs", NOTE_3.getTimestamp());
+        adapter.setNotes(Arrays.asList(renamed, NOTE_1));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        // Assert
+        assertEquals(2, adapter.getItemCount());
+        assertTrue(adapter.hasStableIds());
+        assertEquals(NOTE_1.getId(), firstId);
+        assertEquals(NOTE_3.getId(), lastId);
+        assertEquals(lastId, adapter.getItemId(0));
+        assertEquals(firstId, adapter.getItemId(1));
+        assertEquals(renamed, adapter.getNote(0));
+    }
+}
@@ -6,36 +6,22 @@ import com.example.notetaker.util.DateUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.TestReporter;
-import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.Calendar;
 import java.util.Random;
+import java.util.TimeZone;
 
 import static com.example.notetaker.util.DateUtil.GET_MONTH_ERROR;
+import static com.example.notetaker.util.DateUtil.getDisplayTimestamp;
 import static com.example.notetaker.util.DateUtil.getMonthFromNumber;
 import static com.example.notetaker.util.DateUtil.monthNumbers;
 import static com.example.notetaker.util.DateUtil.months;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class DateUtilsTest {
 
-    private static String today = "04-2020";
-    @Test
-    void getCurrentTimestamp_assertNoException_returnTrue() {
-        //assertDoesNotThrow takes an executable
-        //and executable is like a Runnable, but it can throw any kind of exception
-        assertDoesNotThrow(new Executable() {
-            @Override
-            public void execute() throws Throwable {
-                assertEquals(today, DateUtil.getCurrentTimeStamp());
-                System.out.println("Timestamp is generated correctly");
-
-            }
-        });
-    }
-
     @ParameterizedTest
     @ValueSource(ints = {0,1,2,3,4,5,6,7,8,9,10,11})
     public void getMonthFromNumber_returnSuccess(int monthNumber, TestInfo testInfo, TestReporter testReporter){
@@ -50,4 +36,46 @@ public class DateUtilsTest {
         assertEquals(getMonthFromNumber(String.valueOf(monthNumber * randomInt)), GET_MONTH_ERROR);
         System.out.println(monthNumbers[monthNumber] + " : " + GET_MONTH_ERROR);
     }
+
+    @Test
+    void getDisplayTimestamp_returnMonthAndYear(){
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2019, Calendar.MAY, 15);
+        assertEquals("May 2019", getDisplayTimestamp(calendar.getTimeInMillis()));
+        calendar.set(2020, Calendar.DECEMBER, 31, 23, 59);
+        assertEquals("Dec 2020", getDisplayTimestamp(calendar.getTimeInMillis()));
+    }
+
+    @Test
+    void getDisplayTimestamp_noTimestamp_returnEmpty(){
+        assertEquals("", getDisplayTimestamp(0));
+    }
+
+    @Test
+    void appendDisplayTimestamp_reuseBuilder_returnMonthAndYear(){
+        DateUtil.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            StringBuilder builder = new StringBuilder();
+            DateUtil.appendDisplayTimestamp(builder, 1556668800000L); // 1 May 2019 00:00 UTC
+            assertEquals("May 2019", builder.toString());
+
+            builder.setLength(0);
+            DateUtil.appendDisplayTimestamp(builder, 1556668799999L); // a millisecond before
+            assertEquals("Apr 2019", builder.toString());
+        } finally {
+            DateUtil.setTimeZone(TimeZone.getDefault());
+        }
+    }
+
+    @Test
+    void getDisplayTimestamp_useTimeZone(){
+        // 1 May 2019 00:00 UTC is still April in New York
+        DateUtil.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+        try {
+            assertEquals("Apr 2019", getDisplayTimestamp(1556668800000L));
+        } finally {
+            DateUtil.setTimeZone(TimeZone.getDefault());
+        }
+    }
 }
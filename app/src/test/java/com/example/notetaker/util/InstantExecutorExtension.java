@@ -8,17 +8,38 @@ import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
+import java.util.concurrent.Callable;
+
+import io.reactivex.Scheduler;
+import io.reactivex.android.plugins.RxAndroidPlugins;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
 //the InstantExecutorExtension class is the JUnit5 equivalent for forcing operations to run on the main thread
 //then use at top of test class: @ExtendWith(InstantExecutorExtension.class)
+//AndroidSchedulers.mainThread() runs things straight away too, there's no Looper in a unit test
 
 public class InstantExecutorExtension implements AfterEachCallback, BeforeEachCallback {
     @Override
     public void afterEach(ExtensionContext context) throws Exception {
         ArchTaskExecutor.getInstance().setDelegate(null);
+        RxAndroidPlugins.reset();
     }
 
     @Override
     public void beforeEach(ExtensionContext context) throws Exception {
+        RxAndroidPlugins.setInitMainThreadSchedulerHandler(new Function<Callable<Scheduler>, Scheduler>() {
+            @Override
+            public Scheduler apply(Callable<Scheduler> scheduler) throws Exception {
+                return Schedulers.trampoline();
+            }
+        });
+        RxAndroidPlugins.setMainThreadSchedulerHandler(new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler scheduler) throws Exception {
+                return Schedulers.trampoline();
+            }
+        });
         ArchTaskExecutor.getInstance()
                 .setDelegate(new TaskExecutor() {
                     @Override
@@ -0,0 +1,85 @@
+package com.example.notetaker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntIntMapTest {
+
+    @Test
+    void put_get_overwrite() {
+        IntIntMap map = new IntIntMap();
+
+        map.put(7, 1);
+        map.put(7, 2);
+
+        assertEquals(2, map.get(7, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void zeroKey_keptApartFromFreeSlots() {
+        IntIntMap map = new IntIntMap();
+
+        map.put(0, 5);
+
+        assertTrue(map.containsKey(0));
+        assertEquals(5, map.get(0, -1));
+        assertTrue(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.size());
+    }
+
+    /*
+        random puts and removes, far past the starting capacity
+        every key is found, with the same value as in a HashMap doing the same thing
+        removed keys are gone
+     */
+
+    @Test
+    void putRemove_random_sameAsHashMap() {
+        // Arrange
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act
+        for(int i = 0; i < 20000; i++){
+            int key = random.nextInt(2000) - 100;
+            if(random.nextInt(3) == 0){
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            }
+            else{
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        for(int key = -100; key < 1900; key++){
+            Integer value = expected.get(key);
+            assertEquals(value == null ? -1 : value, map.get(key, -1), "key " + key);
+        }
+    }
+
+    @Test
+    void clear_emptiesMap() {
+        IntIntMap map = new IntIntMap();
+        for(int key = 1; key <= 100; key++){
+            map.put(key, key);
+        }
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(50));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.notetaker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.example.notetaker.util.SearchUtil.COLUMN_WEIGHTS;
+import static com.example.notetaker.util.SearchUtil.rank;
+import static com.example.notetaker.util.SearchUtil.toMatchQuery;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchUtilTest {
+
+    @Test
+    void toMatchQuery_everyWordBecomesPrefix() {
+        assertEquals("garbage* day*", toMatchQuery("garbage day"));
+    }
+
+    @Test
+    void toMatchQuery_dropFtsSyntax() {
+        assertEquals("gift* NEAR* trash*", toMatchQuery("  \"gift\" NEAR/2 -trash* "));
+    }
+
+    @Test
+    void toMatchQuery_nothingSearchable_returnEmpty() {
+        assertEquals("", toMatchQuery(" ,.*\"- "));
+        assertEquals("", toMatchQuery(null));
+    }
+
+    @Test
+    void rank_titleHitOutranksContentHit() {
+        // one phrase, two columns (title, content)
+        byte[] titleHit = matchInfo(1, 2, new int[]{1, 4, 2, 0, 6, 3});
+        byte[] contentHit = matchInfo(1, 2, new int[]{0, 4, 2, 1, 6, 3});
+
+        assertTrue(rank(titleHit, COLUMN_WEIGHTS) > rank(contentHit, COLUMN_WEIGHTS));
+    }
+
+    @Test
+    void rank_truncatedBlob_returnZero() {
+        assertEquals(0.0, rank(new byte[]{1, 0, 0, 0}, COLUMN_WEIGHTS));
+        assertEquals(0.0, rank(matchInfo(2, 2, new int[]{1, 1, 1}), COLUMN_WEIGHTS));
+    }
+
+    private byte[] matchInfo(int phrases, int columns, int[] hits){
+        ByteBuffer buffer = ByteBuffer.allocate((2 + hits.length) * 4).order(ByteOrder.nativeOrder());
+        buffer.putInt(phrases);
+        buffer.putInt(columns);
+        for(int hit : hits){
+            buffer.putInt(hit);
+        }
+        return buffer.array();
+    }
+}
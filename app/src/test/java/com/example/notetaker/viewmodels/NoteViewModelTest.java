@@ -8,22 +8,36 @@ import com.example.notetaker.util.InstantExecutorExtension;
 import com.example.notetaker.util.LiveDataTestUtil;
 import com.example.notetaker.util.TestUtil;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
 import io.reactivex.internal.operators.single.SingleToFlowable;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.TestScheduler;
 
 import static com.example.notetaker.repository.NoteRepository.INSERT_SUCCESS;
+import static com.example.notetaker.repository.NoteRepository.NOTE_FOUND;
 import static com.example.notetaker.repository.NoteRepository.UPDATE_SUCCESS;
 import static com.example.notetaker.ui.note.NoteViewModel.NO_CONTENT_ERROR;
+import static com.example.notetaker.ui.note.NoteViewModel.SAVE_DEBOUNCE_MS;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +56,23 @@ public class NoteViewModelTest {
         noteViewModel = new NoteViewModel(noteRepository);
     }
 
+    @AfterEach
+    public void tearDown(){
+        RxJavaPlugins.reset();
+    }
+
+    //the save debounce runs on the computation scheduler, this hands it a clock the test moves by hand
+    private TestScheduler useTestDebounceClock(){
+        final TestScheduler scheduler = new TestScheduler();
+        RxJavaPlugins.setComputationSchedulerHandler(new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler computation) throws Exception {
+                return scheduler;
+            }
+        });
+        return scheduler;
+    }
+
     //cant observe note that hasn't been set
 
     @Test
@@ -68,6 +99,21 @@ public class NoteViewModelTest {
         assertEquals(observedNote, note);
     }
 
+    //load a note by id and observe it
+
+    @Test
+    void loadNote_returnNote() throws Exception {
+        //Arrange
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        LiveDataTestUtil<Resource<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
+        Resource<Note> returnedData = Resource.success(note, NOTE_FOUND);
+        when(noteRepository.getNote(1)).thenReturn(Flowable.just(returnedData));
+        //Act
+        Resource<Note> observedData = liveDataTestUtil.getValue(noteViewModel.loadNote(1));
+        //Assert
+        assertEquals(returnedData, observedData);
+    }
+
     //insert a new note and observe the row returned
 
     @Test
@@ -81,7 +127,8 @@ public class NoteViewModelTest {
         //Act
         noteViewModel.setNote(note);
         noteViewModel.setIsNewNote(true);
-        Resource<Integer> returnedValue = liveDataTestUtil.getValue(noteViewModel.saveNote());
+        noteViewModel.saveNote();
+        Resource<Integer> returnedValue = liveDataTestUtil.getValue(noteViewModel.observeSaveResult());
         //Assert
         assertEquals(Resource.success(insertedRow, INSERT_SUCCESS), returnedValue);
     }
@@ -124,11 +171,124 @@ public class NoteViewModelTest {
         //Act
         noteViewModel.setNote(note);
         noteViewModel.setIsNewNote(false);
-        Resource<Integer> returnedValue = liveDataTestUtil.getValue(noteViewModel.saveNote());
+        noteViewModel.saveNote();
+        Resource<Integer> returnedValue = liveDataTestUtil.getValue(noteViewModel.observeSaveResult());
         //Assert
         assertEquals(Resource.success(updatedRow, UPDATE_SUCCESS), returnedValue);
     }
 
+    //several saves in a row, only the latest note is written
+
+    @Test
+    void saveNoteRepeatedly_writeLatestNoteOnce() throws Exception {
+        //Arrange
+        TestScheduler clock = useTestDebounceClock();
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        Flowable<Resource<Integer>> returnedData = SingleToFlowable.just(Resource.success(1, UPDATE_SUCCESS));
+        when(noteRepository.updateNote(any(Note.class))).thenReturn(returnedData);
+        noteViewModel.setNote(note);
+        noteViewModel.setIsNewNote(false);
+        //Act
+        for(int i = 0; i < 5; i++){
+            noteViewModel.updateNote(note.getTitle(), "content " + i);
+            noteViewModel.saveNote();
+        }
+        //well past the debounce, every write the saves could start has run by now
+        clock.advanceTimeBy(SAVE_DEBOUNCE_MS * 10, TimeUnit.MILLISECONDS);
+        //Assert
+        ArgumentCaptor<Note> captor = ArgumentCaptor.forClass(Note.class);
+        verify(noteRepository, times(1)).updateNote(captor.capture());
+        assertEquals("content 4", captor.getValue().getContent());
+    }
+
+    /*
+        Save while a write is still running, twice:
+            both saves get through the debounce while the first write is running
+            once it finishes only the newest note is written, the one saved in between is skipped
+     */
+
+    @Test
+    void saveTwiceDuringWrite_writeOnlyNewest() throws Exception {
+        //Arrange
+        TestScheduler clock = useTestDebounceClock();
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        PublishProcessor<Resource<Integer>> firstWrite = PublishProcessor.create();
+        when(noteRepository.updateNote(any(Note.class))).thenReturn(
+                firstWrite,
+                SingleToFlowable.just(Resource.success(1, UPDATE_SUCCESS)));
+        noteViewModel.setNote(note);
+        noteViewModel.setIsNewNote(false);
+        noteViewModel.updateNote(note.getTitle(), "first");
+        noteViewModel.saveNote();
+        clock.advanceTimeBy(SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        //Act
+        noteViewModel.updateNote(note.getTitle(), "outdated");
+        noteViewModel.saveNote();
+        clock.advanceTimeBy(SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        noteViewModel.updateNote(note.getTitle(), "newest");
+        noteViewModel.saveNote();
+        clock.advanceTimeBy(SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        firstWrite.onNext(Resource.success(1, UPDATE_SUCCESS));
+        firstWrite.onComplete();
+        clock.advanceTimeBy(SAVE_DEBOUNCE_MS * 10, TimeUnit.MILLISECONDS);
+        //Assert
+        ArgumentCaptor<Note> captor = ArgumentCaptor.forClass(Note.class);
+        verify(noteRepository, times(2)).updateNote(captor.capture());
+        List<Note> written = captor.getAllValues();
+        assertEquals("first", written.get(0).getContent());
+        assertEquals("newest", written.get(1).getContent());
+    }
+
+    //flushing a pending save writes it without waiting for the debounce
+
+    @Test
+    void flushPendingSave_writeImmediately() throws Exception {
+        //Arrange
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        Flowable<Resource<Integer>> returnedData = SingleToFlowable.just(Resource.success(1, UPDATE_SUCCESS));
+        when(noteRepository.updateNote(any(Note.class))).thenReturn(returnedData);
+        noteViewModel.setNote(note);
+        noteViewModel.setIsNewNote(false);
+        //Act
+        noteViewModel.saveNote();
+        noteViewModel.flushPendingSave();
+        //Assert
+        verify(noteRepository).updateNote(any(Note.class));
+    }
+
+    /*
+        Save a new note twice:
+            the first save inserts it
+            the second save updates it with the id the insert returned, not id 0
+            the note being edited isn't replaced by the write thread
+     */
+
+    @Test
+    void saveNewNoteTwice_updateWithInsertedId() throws Exception {
+        //Arrange
+        Note note = new Note(TestUtil.TEST_NOTE_1);
+        final int insertedId = 5;
+        when(noteRepository.insertNote(any(Note.class))).thenReturn(
+                SingleToFlowable.just(Resource.success(insertedId, INSERT_SUCCESS)));
+        when(noteRepository.updateNote(any(Note.class))).thenReturn(
+                SingleToFlowable.just(Resource.success(1, UPDATE_SUCCESS)));
+        noteViewModel.setNote(note);
+        noteViewModel.setIsNewNote(true);
+        //Act
+        noteViewModel.saveNote();
+        noteViewModel.flushPendingSave();
+        verify(noteRepository, timeout(2000)).insertNote(any(Note.class));
+        noteViewModel.updateNote(note.getTitle(), "edited content");
+        noteViewModel.saveNote();
+        noteViewModel.flushPendingSave();
+        //Assert
+        ArgumentCaptor<Note> captor = ArgumentCaptor.forClass(Note.class);
+        verify(noteRepository, timeout(2000)).updateNote(captor.capture());
+        assertEquals(insertedId, captor.getValue().getId());
+        assertEquals("edited content", captor.getValue().getContent());
+        assertEquals(0, new LiveDataTestUtil<Note>().getValue(noteViewModel.observeNote()).getId());
+    }
+
     //update, dont return new row without the observer
 
     @Test
@@ -1,8 +1,14 @@
 package com.example.notetaker.viewmodels;
 
-import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 
 import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteChange;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.models.NoteSummaryPage;
+import com.example.notetaker.repository.ChangeLogTrimmedException;
 import com.example.notetaker.repository.NoteRepository;
 import com.example.notetaker.ui.Resource;
 import com.example.notetaker.ui.noteslist.NotesListViewModel;
@@ -15,14 +21,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import io.reactivex.Flowable;
+import io.reactivex.processors.PublishProcessor;
+
 import static com.example.notetaker.repository.NoteRepository.DELETE_FAILURE;
 import static com.example.notetaker.repository.NoteRepository.DELETE_SUCCESS;
+import static com.example.notetaker.ui.noteslist.NotesListViewModel.MAX_PAGES;
+import static com.example.notetaker.ui.noteslist.NotesListViewModel.PAGE_SIZE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(InstantExecutorExtension.class)
@@ -41,7 +62,7 @@ public class NotesListViewModelTest {
     }
 
     /*
-        Retrieve list of notes
+        Retrieve first page of notes
         observe list
         return list
      */
@@ -49,21 +70,21 @@ public class NotesListViewModelTest {
     @Test
     void retrieveNotes_returnNotesList() throws Exception {
         // Arrange
-        List<Note> returnedData = TestUtil.TEST_NOTES_LIST;
-        LiveDataTestUtil<List<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
-        MutableLiveData<List<Note>> returnedValue = new MutableLiveData<>();
-        returnedValue.setValue(returnedData);
-        when(noteRepository.getNotes()).thenReturn(returnedValue);
+        List<NoteSummary> returnedData = TestUtil.TEST_NOTE_SUMMARIES_LIST;
+        LiveDataTestUtil<List<NoteSummary>> liveDataTestUtil = new LiveDataTestUtil<>();
+        stubChanges(Flowable.<List<NoteDelta>>never());
+        when(noteRepository.getNoteSummaryPage(anyInt(), anyInt())).thenReturn(Flowable.just(new NoteSummaryPage(0, returnedData)));
 
         // Act
-        viewModel.getNotes();
-        List<Note> observedData = liveDataTestUtil.getValue(viewModel.observeNotes());
+        viewModel.loadNotes();
+        List<NoteSummary> observedData = liveDataTestUtil.getValue(viewModel.observeNotes());
 
         // Assert
         assertEquals(returnedData, observedData);
+        verify(noteRepository).getNoteSummaryPage(0, PAGE_SIZE);
     }
     /*
-        retrieve list of notes
+        retrieve first page of notes
         observe the list
         return empty list
      */
@@ -71,20 +92,136 @@ public class NotesListViewModelTest {
     @Test
     void retrieveNotes_returnEmptyNotesList() throws Exception {
         // Arrange
-        List<Note> returnedData = new ArrayList<>();
-        LiveDataTestUtil<List<Note>> liveDataTestUtil = new LiveDataTestUtil<>();
-        MutableLiveData<List<Note>> returnedValue = new MutableLiveData<>();
-        returnedValue.setValue(returnedData);
-        when(noteRepository.getNotes()).thenReturn(returnedValue);
+        List<NoteSummary> returnedData = new ArrayList<>();
+        LiveDataTestUtil<List<NoteSummary>> liveDataTestUtil = new LiveDataTestUtil<>();
+        stubChanges(Flowable.<List<NoteDelta>>never());
+        when(noteRepository.getNoteSummaryPage(anyInt(), anyInt())).thenReturn(Flowable.just(new NoteSummaryPage(0, returnedData)));
 
         // Act
-        viewModel.getNotes();
-        List<Note> observedData = liveDataTestUtil.getValue(viewModel.observeNotes());
+        viewModel.loadNotes();
+        List<NoteSummary> observedData = liveDataTestUtil.getValue(viewModel.observeNotes());
 
         // Assert
         assertEquals(returnedData, observedData);
     }
 
+    /*
+        read first page of notes
+        notes are updated, deleted and inserted after the first read
+        deltas are applied to the list without reading it again
+     */
+
+    @Test
+    void retrieveNotes_changeFeed_applyDeltas() throws Exception {
+        // Arrange
+        PublishProcessor<List<NoteDelta>> changes = PublishProcessor.create();
+        stubChanges(changes);
+        when(noteRepository.getNoteSummaryPage(anyInt(), anyInt())).thenReturn(Flowable.just(new NoteSummaryPage(0, TestUtil.TEST_NOTE_SUMMARIES_LIST)));
+        viewModel.observeNotes().observeForever(new Observer<List<NoteSummary>>() {
+            @Override
+            public void onChanged(List<NoteSummary> noteSummaries) {
+            }
+        });
+        viewModel.loadNotes();
+        NoteSummary updated = new NoteSummary(1, "updated", TestUtil.TIMESTAMP_2);
+        NoteSummary inserted = new NoteSummary(3, "inserted", TestUtil.TIMESTAMP_2);
+
+        // Act
+        changes.onNext(Arrays.asList(
+                new NoteDelta(1, 1, NoteChange.TYPE_UPDATE, updated),
+                new NoteDelta(2, 2, NoteChange.TYPE_DELETE, null)));
+        changes.onNext(Collections.singletonList(
+                new NoteDelta(3, 3, NoteChange.TYPE_INSERT, inserted)));
+        viewModel.loadNotes();
+
+        // Assert
+        assertEquals(Arrays.asList(updated, inserted), viewModel.observeNotes().getValue());
+        verify(noteRepository, times(1)).getNoteSummaryPage(anyInt(), anyInt());
+        verify(noteRepository).observeChangesAfter(0);
+    }
+
+    /*
+        read first page of notes, its seq is older than the change log's last trim
+        the change feed fails with ChangeLogTrimmedException
+        the page is read again and the feed is observed from the new page's seq
+     */
+
+    @Test
+    void retrieveNotes_changeLogTrimmed_readPageAgain() throws Exception {
+        // Arrange
+        List<NoteSummary> stalePage = Collections.singletonList(TestUtil.TEST_NOTE_SUMMARIES_LIST.get(0));
+        List<NoteSummary> currentPage = TestUtil.TEST_NOTE_SUMMARIES_LIST;
+        when(noteRepository.getNoteSummaryPage(anyInt(), anyInt())).thenReturn(
+                Flowable.just(new NoteSummaryPage(0, stalePage)),
+                Flowable.just(new NoteSummaryPage(150, currentPage)));
+        when(noteRepository.observeChangesAfter(0)).thenReturn(
+                Flowable.<List<NoteDelta>>error(new ChangeLogTrimmedException(0, 120)));
+        when(noteRepository.observeChangesAfter(150)).thenReturn(Flowable.<List<NoteDelta>>never());
+        viewModel.observeNotes().observeForever(new Observer<List<NoteSummary>>() {
+            @Override
+            public void onChanged(List<NoteSummary> noteSummaries) {
+            }
+        });
+
+        // Act
+        viewModel.loadNotes();
+
+        // Assert
+        assertEquals(currentPage, viewModel.observeNotes().getValue());
+        verify(noteRepository, times(2)).getNoteSummaryPage(0, PAGE_SIZE);
+        verify(noteRepository).observeChangesAfter(150);
+    }
+
+    /*
+        load the next page
+        window's query grows by a page
+        pages beyond MAX_PAGES are dropped from the start
+     */
+
+    @Test
+    void loadNextPage_growWindowAndDropFirstPage() throws Exception {
+        // Arrange
+        stubChanges(Flowable.<List<NoteDelta>>never());
+        when(noteRepository.getNoteSummaryPage(anyInt(), anyInt())).thenAnswer(new Answer<Flowable<NoteSummaryPage>>() {
+            @Override
+            public Flowable<NoteSummaryPage> answer(InvocationOnMock invocation) throws Throwable {
+                int afterId = invocation.getArgument(0);
+                int limit = invocation.getArgument(1);
+                return Flowable.just(new NoteSummaryPage(0, createNotes(afterId + 1, limit)));
+            }
+        });
+        //the window only takes in rows while the list is being observed
+        viewModel.observeNotes().observeForever(new Observer<List<NoteSummary>>() {
+            @Override
+            public void onChanged(List<NoteSummary> noteSummaries) {
+            }
+        });
+        viewModel.loadNotes();
+
+        // Act
+        for(int page = 1; page <= MAX_PAGES; page++){
+            viewModel.loadNextPage();
+        }
+        List<NoteSummary> observedData = viewModel.observeNotes().getValue();
+
+        // Assert
+        assertEquals(PAGE_SIZE * MAX_PAGES, observedData.size());
+        assertEquals(PAGE_SIZE + 1, observedData.get(0).getId());
+        assertEquals(PAGE_SIZE * (MAX_PAGES + 1), observedData.get(observedData.size() - 1).getId());
+        verify(noteRepository).getNoteSummaryPage(PAGE_SIZE, PAGE_SIZE * MAX_PAGES);
+    }
+
+    private void stubChanges(Flowable<List<NoteDelta>> changes){
+        when(noteRepository.observeChangesAfter(anyLong())).thenReturn(changes);
+    }
+
+    private List<NoteSummary> createNotes(int firstId, int count){
+        List<NoteSummary> notes = new ArrayList<>();
+        for(int id = firstId; id < firstId + count; id++){
+            notes.add(new NoteSummary(id, "title " + id, TestUtil.TIMESTAMP_1));
+        }
+        return notes;
+    }
 
     /*
         delete note
@@ -95,12 +232,10 @@ public class NotesListViewModelTest {
     @Test
     void deleteNote_observeResourceSuccess() throws Exception {
         // Arrange
-        Note deletedNote = new Note(TestUtil.TEST_NOTE_1);
+        NoteSummary deletedNote = TestUtil.TEST_NOTE_SUMMARIES_LIST.get(0);
         Resource<Integer> returnedData = Resource.success(1, DELETE_SUCCESS);
         LiveDataTestUtil<Resource<Integer>> liveDataTestUtil = new LiveDataTestUtil<>();
-        MutableLiveData<Resource<Integer>> returnedValue = new MutableLiveData<>();
-        returnedValue.setValue(returnedData);
-        when(noteRepository.deleteNote(any(Note.class))).thenReturn(returnedValue);
+        when(noteRepository.deleteNote(any(Note.class))).thenReturn(Flowable.just(returnedData));
 
         // Act
         Resource<Integer> observedValue = liveDataTestUtil.getValue(viewModel.deleteNote(deletedNote));
@@ -118,12 +253,10 @@ public class NotesListViewModelTest {
     @Test
     void deleteNote_observeResourceError() throws Exception {
         // Arrange
-        Note deletedNote = new Note(TestUtil.TEST_NOTE_1);
+        NoteSummary deletedNote = TestUtil.TEST_NOTE_SUMMARIES_LIST.get(0);
         Resource<Integer> returnedData = Resource.error(null, DELETE_FAILURE);
         LiveDataTestUtil<Resource<Integer>> liveDataTestUtil = new LiveDataTestUtil<>();
-        MutableLiveData<Resource<Integer>> returnedValue = new MutableLiveData<>();
-        returnedValue.setValue(returnedData);
-        when(noteRepository.deleteNote(any(Note.class))).thenReturn(returnedValue);
+        when(noteRepository.deleteNote(any(Note.class))).thenReturn(Flowable.just(returnedData));
 
         // Act
         Resource<Integer> observedValue = liveDataTestUtil.getValue(viewModel.deleteNote(deletedNote));
@@ -133,5 +266,83 @@ public class NotesListViewModelTest {
         assertEquals(returnedData, observedValue);
     }
 
+    /*
+        search
+        observe the results once the query has been debounced
+        return the results
+     */
+
+    @Test
+    void setQuery_returnSearchResults() throws Exception {
+        // Arrange
+        List<NoteSearchResult> returnedData = createSearchResults();
+        LiveDataTestUtil<List<NoteSearchResult>> liveDataTestUtil = new LiveDataTestUtil<>();
+        when(noteRepository.search("milk")).thenReturn(Flowable.just(returnedData));
+
+        // Act
+        viewModel.setQuery("milk");
+        List<NoteSearchResult> observedData = liveDataTestUtil.getValue(viewModel.observeSearchResults());
+
+        // Assert
+        assertEquals(returnedData, observedData);
+        assertTrue(viewModel.isSearching());
+    }
+
+    /*
+        search, clear the search, then search for the same query again
+        cleared query returns an empty list straight away
+        repeated query is served from the cache without searching again
+     */
+
+    @Test
+    void setQuery_clearAndRepeat_servedFromCache() throws Exception {
+        // Arrange
+        List<NoteSearchResult> returnedData = createSearchResults();
+        LiveDataTestUtil<List<NoteSearchResult>> liveDataTestUtil = new LiveDataTestUtil<>();
+        when(noteRepository.search("milk")).thenReturn(Flowable.just(returnedData));
+        viewModel.setQuery("milk");
+        liveDataTestUtil.getValue(viewModel.observeSearchResults());
 
+        // Act
+        viewModel.setQuery("");
+        List<NoteSearchResult> clearedData = viewModel.observeSearchResults().getValue();
+        viewModel.setQuery("milk");
+        List<NoteSearchResult> repeatedData = viewModel.observeSearchResults().getValue();
+
+        // Assert
+        assertTrue(clearedData.isEmpty());
+        assertEquals(returnedData, repeatedData);
+        verify(noteRepository, times(1)).search("milk");
+    }
+
+    /*
+        search, and refresh the search while the results are still being read
+        the late results are shown but not cached
+        searching for the same query again goes back to the repository
+     */
+
+    @Test
+    void setQuery_resultsArriveAfterRefresh_notCached() throws Exception {
+        // Arrange
+        PublishProcessor<List<NoteSearchResult>> staleSearch = PublishProcessor.create();
+        List<NoteSearchResult> returnedData = createSearchResults();
+        when(noteRepository.search("milk")).thenReturn(staleSearch, Flowable.just(returnedData));
+        viewModel.setQuery("milk");
+        verify(noteRepository, timeout(2000)).search("milk");
+
+        // Act
+        viewModel.refreshSearch();
+        staleSearch.onNext(returnedData);
+        viewModel.setQuery("");
+        viewModel.setQuery("milk");
+
+        // Assert
+        verify(noteRepository, timeout(2000).times(2)).search("milk");
+    }
+
+    private List<NoteSearchResult> createSearchResults(){
+        List<NoteSearchResult> results = new ArrayList<>();
+        results.add(new NoteSearchResult(1, "milk", TestUtil.TIMESTAMP_1, "semi skimmed"));
+        return results;
+    }
 }
@@ -0,0 +1,76 @@
+package com.example.notetaker.benchmark;
+
+import com.example.notetaker.util.DateUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//DateUtil against LegacyDateUtil for the calls made on every list bind
+//run with ./gradlew :benchmark:jmh, add -Pjmh.profilers=gc to see the bytes allocated per call
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final long[] timestamps = new long[SAMPLES];
+    private final String[] monthNumbers = new String[SAMPLES];
+    private final StringBuilder builder = new StringBuilder(16);
+    private int next;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(42);
+        for(int i = 0; i < SAMPLES; i++){
+            //somewhere between 2000 and 2030
+            timestamps[i] = 946684800000L + (long) (random.nextDouble() * 946684800000L);
+            monthNumbers[i] = DateUtil.monthNumbers[random.nextInt(12)];
+        }
+    }
+
+    private int nextIndex(){
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public String monthFromNumber_legacy(){
+        return LegacyDateUtil.getMonthFromNumber(monthNumbers[nextIndex()]);
+    }
+
+    @Benchmark
+    public String monthFromNumber(){
+        return DateUtil.getMonthFromNumber(monthNumbers[nextIndex()]);
+    }
+
+    @Benchmark
+    public String displayTimestamp_legacy(){
+        return LegacyDateUtil.getDisplayTimestamp(timestamps[nextIndex()]);
+    }
+
+    @Benchmark
+    public String displayTimestamp(){
+        return DateUtil.getDisplayTimestamp(timestamps[nextIndex()]);
+    }
+
+    @Benchmark
+    public StringBuilder appendDisplayTimestamp(){
+        builder.setLength(0);
+        return DateUtil.appendDisplayTimestamp(builder, timestamps[nextIndex()]);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.notetaker.benchmark;
+
+import java.util.Calendar;
+
+//DateUtil as it was before it was made allocation free, kept as the baseline for DateUtilBenchmark
+public class LegacyDateUtil {
+
+    private static final String TAG = "Utility";
+
+    public static final String[] monthNumbers = {"01","02","03","04","05","06","07","08","09","10","11","12"};
+    public static final String[] months = {"Jan","Feb","Mar","Apr","May","Jun","Jul","Aug","Sep","Oct","Nov","Dec"};
+    public static final String GET_MONTH_ERROR = "Error. Invalid month number.";
+
+    public static String getMonthFromNumber(String monthNumber){
+        switch(monthNumber){
+            case "01":{
+                return months[0];
+            }
+            case "02":{
+                return months[1];
+            }
+            case "03":{
+                return months[2];
+            }
+            case "04":{
+                return months[3];
+            }
+            case "05":{
+                return months[4];
+            }
+            case "06":{
+                return months[5];
+            }
+            case "07":{
+                return months[6];
+            }
+            case "08":{
+                return months[7];
+            }
+            case "09":{
+                return months[8];
+            }
+            case "10":{
+                return months[9];
+            }
+            case "11":{
+                return months[10];
+            }
+            case "12":{
+                return months[11];
+            }
+
+            default:{
+                return GET_MONTH_ERROR;
+            }
+        }
+    }
+
+    //turns a timestamp in milliseconds into the "Mmm yyyy" shown in the notes list, in the device's time zone
+    //returns an empty string for a note that has no timestamp
+    public static String getDisplayTimestamp(long timestamp){
+        if(timestamp <= 0){
+            return "";
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return months[calendar.get(Calendar.MONTH)] + " " + calendar.get(Calendar.YEAR);
+    }
+
+}
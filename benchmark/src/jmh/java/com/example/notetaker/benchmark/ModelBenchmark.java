@@ -0,0 +1,47 @@
+package com.example.notetaker.benchmark;
+
+import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteSummary;
+import com.example.notetaker.ui.Resource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//the objects made on every save and every page of the list
+//Parcel needs the Android runtime, so parceling a Note can't be measured here, only copying one
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private final Note note = new Note(1, "Take out the trash", "It's garbage day tomorrow.", 1556668800000L);
+
+    //the cache copies a note on the way in and on the way out
+    @Benchmark
+    public Note copyNote(){
+        return new Note(note);
+    }
+
+    //includes working out the display timestamp, which is done once per row read
+    @Benchmark
+    public NoteSummary createNoteSummary(){
+        return new NoteSummary(note.getId(), note.getTitle(), note.getTimestamp());
+    }
+
+    @Benchmark
+    public Resource<Note> createResource(){
+        return Resource.success(note, "Note found");
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.notetaker.benchmark;
+
+import com.example.notetaker.db.DatabaseExecutors;
+import com.example.notetaker.db.DbSchedulers;
+import com.example.notetaker.db.InMemoryNoteDao;
+import com.example.notetaker.metrics.InMemoryRepositoryMetrics;
+import com.example.notetaker.metrics.NoOpRepositoryMetrics;
+import com.example.notetaker.metrics.RepositoryMetrics;
+import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteSummaryPage;
+import com.example.notetaker.repository.NoteRepository;
+import com.example.notetaker.ui.Resource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//NoteRepository's save and list paths over InMemoryNoteDao, so what's measured is the repository and its rx chains, not sqlite
+//"trampoline" runs everything on the benchmark thread, "executors" hands each call to the db threads like the app does,
+//the difference between the two is the cost of the thread hops
+//"none" and "inMemory" are the two RepositoryMetrics, the difference is what recording every call costs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteRepositoryBenchmark {
+
+    private static final int NOTE_COUNT = 10000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"trampoline", "executors"})
+    public String schedulers;
+
+    @Param({"none", "inMemory"})
+    public String metrics;
+
+    private DatabaseExecutors executors;
+    private NoteRepository repository;
+    private Note cachedNote;
+    private Note savedNote;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        InMemoryNoteDao noteDao = new InMemoryNoteDao();
+        List<Note> notes = new ArrayList<>(NOTE_COUNT);
+        for(int i = 0; i < NOTE_COUNT; i++){
+            notes.add(new Note("title " + i, "It's garbage day tomorrow, note number " + i, 1556668800000L + i));
+        }
+        noteDao.insertNotes(notes);
+
+        DbSchedulers dbSchedulers;
+        if(schedulers.equals("executors")){
+            executors = new DatabaseExecutors(2);
+            dbSchedulers = DbSchedulers.from(executors);
+        }
+        else{
+            dbSchedulers = DbSchedulers.trampoline();
+        }
+        RepositoryMetrics repositoryMetrics = metrics.equals("inMemory")
+                ? new InMemoryRepositoryMetrics()
+                : new NoOpRepositoryMetrics();
+        repository = new NoteRepository(noteDao, dbSchedulers, repositoryMetrics);
+
+        cachedNote = repository.getNote(1).blockingFirst().data;
+        savedNote = new Note(repository.getNote(2).blockingFirst().data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        if(executors != null){
+            executors.getQueryExecutor().shutdown();
+            executors.getTransactionExecutor().shutdown();
+        }
+    }
+
+    //walks through every note, so the cache only ever holds notes that were read long ago
+    private int nextUncachedId(){
+        nextId = nextId % NOTE_COUNT + 1;
+        return nextId;
+    }
+
+    @Benchmark
+    public Resource<Note> getNote_cached(){
+        return repository.getNote(cachedNote.getId()).blockingFirst();
+    }
+
+    @Benchmark
+    public Resource<Note> getNote_uncached(){
+        return repository.getNote(nextUncachedId()).blockingFirst();
+    }
+
+    //the save path, NoteViewModel calls this for every debounced edit
+    @Benchmark
+    public Resource<Integer> updateNote() throws Exception {
+        return repository.updateNote(savedNote).blockingFirst();
+    }
+
+    //the list path, the first window of the notes list together with its change seq
+    @Benchmark
+    public NoteSummaryPage getNoteSummaryPage(){
+        return repository.getNoteSummaryPage(0, PAGE_SIZE).blockingFirst();
+    }
+}
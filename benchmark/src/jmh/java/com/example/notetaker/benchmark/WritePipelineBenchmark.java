@@ -0,0 +1,83 @@
+package com.example.notetaker.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+//the latency of NoteRepository.insertNote()'s rx chain, with and without the delaySubscription(0) it used to have
+//the dao is a callable that returns straight away, so what's measured is the scheduling around it:
+//even a delay of 0 hands the write to the computation scheduler's timer before it reaches the db thread
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WritePipelineBenchmark {
+
+    private ExecutorService writeExecutor;
+    private Scheduler writes;
+
+    private final Callable<Long> insert = new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+            return 1L;
+        }
+    };
+
+    private final Function<Long, Integer> toRow = new Function<Long, Integer>() {
+        @Override
+        public Integer apply(Long row) throws Exception {
+            return (int) (long) row;
+        }
+    };
+
+    @Setup
+    public void setup(){
+        //the same single writer thread DbSchedulers uses
+        writeExecutor = Executors.newSingleThreadExecutor();
+        writes = Schedulers.from(writeExecutor);
+    }
+
+    @TearDown
+    public void tearDown(){
+        writeExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Integer insert_delaySubscription(){
+        return Single.fromCallable(insert)
+                .delaySubscription(0, TimeUnit.SECONDS)
+                .map(toRow)
+                .subscribeOn(writes)
+                .toFlowable()
+                .blockingFirst();
+    }
+
+    @Benchmark
+    public Integer insert_direct(){
+        return Single.fromCallable(insert)
+                .map(toRow)
+                .subscribeOn(writes)
+                .toFlowable()
+                .blockingFirst();
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.notetaker.db;
+
+import android.database.sqlite.SQLiteConstraintException;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.notetaker.models.Note;
+import com.example.notetaker.models.NoteChange;
+import com.example.notetaker.models.NoteDelta;
+import com.example.notetaker.models.NoteMatch;
+import com.example.notetaker.models.NoteSearchResult;
+import com.example.notetaker.models.NoteSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+
+//a NoteDao over a sorted map, so NoteRepository's rx chains can be benchmarked on a plain jvm
+//it's in the same package as NoteDao to implement the package-private blocking writes the batches are built on
+//there's no full text index, searches never match anything
+public class InMemoryNoteDao extends NoteDao {
+
+    private final TreeMap<Integer, Note> notes = new TreeMap<>();
+    private final List<NoteDelta> changes = new ArrayList<>();
+    private int lastId;
+
+    @Override
+    public Single<Long> insertNote(final Note note) {
+        return Single.fromCallable(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return insertNoteBlocking(note);
+            }
+        });
+    }
+
+    @Override
+    public Single<Integer> updateNote(final Note note) {
+        return Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return updateNoteBlocking(note);
+            }
+        });
+    }
+
+    @Override
+    public Single<Integer> deleteNote(final Note note) {
+        return Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return deleteNoteBlocking(note);
+            }
+        });
+    }
+
+    @Override
+    public LiveData<List<Note>> getNotes() {
+        throw new UnsupportedOperationException("LiveData needs the Android main thread");
+    }
+
+    @Override
+    public Single<Note> getNote(final int id) {
+        return Single.fromCallable(new Callable<Note>() {
+            @Override
+            public Note call() throws Exception {
+                synchronized (InMemoryNoteDao.this){
+                    Note note = notes.get(id);
+                    if(note == null){
+                        //Room throws an EmptyResultSetException, the repository only cares that it's an error
+                        throw new NoSuchElementException("no note with id " + id);
+                    }
+                    return new Note(note);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesAfter(final int afterId, final int limit) {
+        return Single.fromCallable(new Callable<List<NoteSummary>>() {
+            @Override
+            public List<NoteSummary> call() throws Exception {
+                synchronized (InMemoryNoteDao.this){
+                    return summaries(notes.tailMap(afterId, false).values(), limit);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesBefore(final int beforeId, final int limit) {
+        return Single.fromCallable(new Callable<List<NoteSummary>>() {
+            @Override
+            public List<NoteSummary> call() throws Exception {
+                synchronized (InMemoryNoteDao.this){
+                    return summaries(notes.headMap(beforeId, false).descendingMap().values(), limit);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getRecentNoteSummaries(final int limit) {
+        return Single.fromCallable(new Callable<List<NoteSummary>>() {
+            @Override
+            public List<NoteSummary> call() throws Exception {
+                return summaries(byRecency(Long.MAX_VALUE, Integer.MAX_VALUE), limit);
+            }
+        });
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesOlderThan(final long beforeTimestamp, final int beforeId, final int limit) {
+        return Single.fromCallable(new Callable<List<NoteSummary>>() {
+            @Override
+            public List<NoteSummary> call() throws Exception {
+                return summaries(byRecency(beforeTimestamp, beforeId), limit);
+            }
+        });
+    }
+
+    @Override
+    public Single<List<NoteSummary>> getNoteSummariesBetween(final Date from, final Date to) {
+        return Single.fromCallable(new Callable<List<NoteSummary>>() {
+            @Override
+            public List<NoteSummary> call() throws Exception {
+                List<Note> inRange = new ArrayList<>();
+                for(Note note : byRecency(Long.MAX_VALUE, Integer.MAX_VALUE)){
+                    if(note.getTimestamp() >= from.getTime() && note.getTimestamp() < to.getTime()){
+                        inRange.add(note);
+                    }
+                }
+                return summaries(inRange, Integer.MAX_VALUE);
+            }
+        });
+    }
+
+    @Override
+    public Single<List<NoteMatch>> getNoteMatches(String query, int limit) {
+        return Single.<List<NoteMatch>>just(new ArrayList<NoteMatch>());
+    }
+
+    @Override
+    public Single<List<NoteSearchResult>> getNoteSearchResults(String query, List<Integer> ids) {
+        return Single.<List<NoteSearchResult>>just(new ArrayList<NoteSearchResult>());
+    }
+
+    @Override
+    public Single<Long> getLatestChangeSeq() {
+        return Single.fromCallable(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return latestChangeSeq();
+            }
+        });
+    }
+
+    //there's no invalidation tracker, the latest seq is emitted once
+    @Override
+    public Flowable<Long> observeLatestChangeSeq() {
+        return getLatestChangeSeq().toFlowable();
+    }
+
+    @Override
+    public Single<List<NoteDelta>> getChangesAfter(final long afterSeq) {
+        return Single.fromCallable(new Callable<List<NoteDelta>>() {
+            @Override
+            public List<NoteDelta> call() throws Exception {
+                synchronized (InMemoryNoteDao.this){
+                    List<NoteDelta> after = new ArrayList<>();
+                    for(NoteDelta change : changes){
+                        if(change.getSeq() > afterSeq){
+                            after.add(change);
+                        }
+                    }
+                    return after;
+                }
+            }
+        });
+    }
+
+    @Override
+    public Single<Integer> deleteChangesBefore(final long beforeSeq) {
+        return Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                synchronized (InMemoryNoteDao.this){
+                    int deleted = 0;
+                    while(!changes.isEmpty() && changes.get(0).getSeq() < beforeSeq){
+                        changes.remove(0);
+                        deleted++;
+                    }
+                    return deleted;
+                }
+            }
+        });
+    }
+
+    @Override
+    synchronized long insertNoteBlocking(Note note) {
+        checkTitle(note);
+        int id = note.getId() > 0 ? note.getId() : lastId + 1;
+        if(notes.containsKey(id)){
+            throw new SQLiteConstraintException("UNIQUE constraint failed: notes.id");
+        }
+        lastId = Math.max(lastId, id);
+        Note inserted = new Note(note);
+        inserted.setId(id);
+        notes.put(id, inserted);
+        recordChange(id, NoteChange.TYPE_INSERT, inserted);
+        return id;
+    }
+
+    @Override
+    synchronized int updateNoteBlocking(Note note) {
+        if(!notes.containsKey(note.getId())){
+            return 0;
+        }
+        checkTitle(note);
+        Note updated = new Note(note);
+        notes.put(note.getId(), updated);
+        recordChange(note.getId(), NoteChange.TYPE_UPDATE, updated);
+        return 1;
+    }
+
+    @Override
+    synchronized int deleteNoteBlocking(Note note) {
+        if(notes.remove(note.getId()) == null){
+            return 0;
+        }
+        recordChange(note.getId(), NoteChange.TYPE_DELETE, null);
+        return 1;
+    }
+
+    public synchronized int size(){
+        return notes.size();
+    }
+
+    private void checkTitle(Note note){
+        if(note.getTitle() == null){
+            throw new SQLiteConstraintException("NOT NULL constraint failed: notes.title");
+        }
+    }
+
+    private void recordChange(int id, int type, Note note){
+        NoteSummary summary = note == null ? null : new NoteSummary(id, note.getTitle(), note.getTimestamp());
+        changes.add(new NoteDelta(latestChangeSeq() + 1, id, type, summary));
+    }
+
+    private synchronized long latestChangeSeq(){
+        return changes.isEmpty() ? 0 : changes.get(changes.size() - 1).getSeq();
+    }
+
+    //the notes that come after (beforeTimestamp, beforeId), most recent first, ties newest id first
+    private synchronized List<Note> byRecency(long beforeTimestamp, int beforeId){
+        List<Note> older = new ArrayList<>();
+        for(Note note : notes.values()){
+            if(note.getTimestamp() < beforeTimestamp
+                    || (note.getTimestamp() == beforeTimestamp && note.getId() < beforeId)){
+                older.add(note);
+            }
+        }
+        Collections.sort(older, new Comparator<Note>() {
+            @Override
+            public int compare(Note first, Note second) {
+                int byTimestamp = Long.compare(second.getTimestamp(), first.getTimestamp());
+                if(byTimestamp != 0){
+                    return byTimestamp;
+                }
+                return Integer.compare(second.getId(), first.getId());
+            }
+        });
+        return older;
+    }
+
+    private static List<NoteSummary> summaries(Iterable<Note> notes, int limit){
+        List<NoteSummary> summaries = new ArrayList<>();
+        for(Note note : notes){
+            if(summaries.size() == limit){
+                break;
+            }
+            summaries.add(new NoteSummary(note.getId(), note.getTitle(), note.getTimestamp()));
+        }
+        return summaries;
+    }
+}